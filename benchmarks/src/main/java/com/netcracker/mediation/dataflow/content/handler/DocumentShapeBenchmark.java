@@ -0,0 +1,54 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.*;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion time of generated documents of growing size; the time per element has to stay flat.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DocumentShapeBenchmark {
+
+    @Param({"deep", "wide", "wideNames"})
+    private String shape;
+
+    @Param({"1000", "4000", "16000"})
+    private int elements;
+
+    private byte[] content;
+    private XMLReader xmlReader;
+
+    @Setup
+    public void setUp() throws Exception {
+        switch (shape) {
+            case "deep":
+                content = Documents.deep(elements);
+                break;
+            case "wide":
+                content = Documents.wide(elements);
+                break;
+            default:
+                content = Documents.wideNames(elements);
+        }
+        xmlReader = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
+    }
+
+    @Benchmark
+    public JsonNode convert() throws Exception {
+        SaxJsonContentHandler handler = new SaxJsonContentHandler();
+        xmlReader.setContentHandler(handler);
+        xmlReader.parse(new InputSource(new ByteArrayInputStream(content)));
+        return handler.getTree();
+    }
+}
@@ -0,0 +1,85 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+public final class Documents {
+
+    public static final int LARGE_RECORDS = 20000;
+    public static final int DEEP_LEVELS = 2000;
+    public static final int WIDE_ELEMENTS = 50000;
+
+    private Documents() {
+    }
+
+    /**
+     * @param name a file name from the test resources, or {@code large}, {@code deep} or {@code wide}
+     */
+    public static byte[] load(String name) throws IOException {
+        switch (name) {
+            case "large":
+                return large(LARGE_RECORDS);
+            case "deep":
+                return deep(DEEP_LEVELS);
+            case "wide":
+                return wide(WIDE_ELEMENTS);
+            default:
+                return resource(name);
+        }
+    }
+
+    public static byte[] large(int records) {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<anagrafica>\n");
+        xml.append("    <testata>\n        <nomemercato id=\"007\">Mercato di test</nomemercato>\n")
+                .append("        <data>Giovedi 18 dicembre 2003 16.05.29</data>\n    </testata>\n");
+        for (int index = 0; index < records; index++) {
+            xml.append("    <record>\n")
+                    .append("        <codice_cliente>").append(index).append("</codice_cliente>\n")
+                    .append("        <rag_soc>Miami American Cafe</rag_soc>\n")
+                    .append("        <codice_fiscale>IT0765493").append(index % 10000).append("</codice_fiscale>\n")
+                    .append("        <indirizzo tipo=\"casa\">Viale Carlo Espinasse 5, Como</indirizzo>\n")
+                    .append("        <importo>").append(index % 1000).append('.').append(index % 100).append("</importo>\n")
+                    .append("        <attivo>").append(index % 2 == 0).append("</attivo>\n")
+                    .append("    </record>\n");
+        }
+        return xml.append("</anagrafica>\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] deep(int levels) {
+        StringBuilder xml = new StringBuilder();
+        for (int level = 0; level < levels; level++) {
+            xml.append("<level depth=\"").append(level).append("\"><id>").append(level).append("</id>");
+        }
+        for (int level = 0; level < levels; level++) xml.append("</level>");
+        return xml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] wide(int elements) {
+        StringBuilder xml = new StringBuilder("<root>");
+        for (int index = 0; index < elements; index++) {
+            xml.append("<record><id>").append(index).append("</id></record>");
+        }
+        return xml.append("</root>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] wideNames(int elements) {
+        StringBuilder xml = new StringBuilder("<root>");
+        for (int index = 0; index < elements; index++) {
+            xml.append("<field").append(index).append('>').append(index).append("</field").append(index).append('>');
+        }
+        return xml.append("</root>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] resource(String name) throws IOException {
+        try (InputStream input = Documents.class.getClassLoader().getResourceAsStream(name)) {
+            if (input == null) throw new IllegalArgumentException("Unknown document: " + name);
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) output.write(buffer, 0, read);
+            return output.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import org.openjdk.jmh.annotations.*;
+import org.xml.sax.helpers.AttributesImpl;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ElementValueHolderBenchmark {
+
+    @Param({"0", "8"})
+    private int attributes;
+
+    @Param({"4", "64"})
+    private int children;
+
+    @Param({"1", "4"})
+    private int childrenPerName;
+
+    @Param({"false", "true"})
+    private boolean convertToJsonPrimitives;
+
+    @Param({"false", "true"})
+    private boolean usePrefixForAttributes;
+
+    private ElementValueHolderFactory factory;
+    private AttributesImpl elementAttributes;
+    private String[] childNames;
+    private JsonNode[] childNodes;
+    private char[] text;
+
+    @Setup
+    public void setUp() {
+        factory = new ElementValueHolderFactory()
+                .setConvertToJsonPrimitives(convertToJsonPrimitives)
+                .setUsePrefixForAttributes(usePrefixForAttributes);
+
+        elementAttributes = new AttributesImpl();
+        for (int index = 0; index < attributes; index++) {
+            elementAttributes.addAttribute(null, null, "attribute" + index, "CDATA", String.valueOf(index));
+        }
+
+        childNames = new String[children];
+        childNodes = new JsonNode[children];
+        for (int index = 0; index < children; index++) {
+            childNames[index] = "child" + index / childrenPerName;
+            childNodes[index] = JsonNodeFactory.instance.textNode("value" + index);
+        }
+        text = "\n    Viale Carlo Espinasse 5, Como\n".toCharArray();
+    }
+
+    @Benchmark
+    public JsonNode buildNode() {
+        ElementValueHolder holder = factory.newInstance("element", elementAttributes);
+        holder.appendValue(text, 0, text.length);
+        for (int index = 0; index < children; index++) holder.addChild(childNames[index], childNodes[index]);
+        return holder.buildNode();
+    }
+}
@@ -0,0 +1,71 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.xml.sax.InputSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonTapeBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Param({"arrayAnagrafica.xml", "large"})
+    private String document;
+
+    private byte[] content;
+    private SaxJsonConverter converter;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setUp() throws Exception {
+        content = Documents.load(document);
+        converter = new SaxJsonConverter(new ElementValueHolderFactory().setConvertToJsonPrimitives(true), 1);
+        out = new ByteArrayOutputStream(content.length);
+    }
+
+    @Benchmark
+    public String treeReadOne() throws Exception {
+        return converter.convert(source()).get("anagrafica").get("testata").get("data").textValue();
+    }
+
+    @Benchmark
+    public String tapeReadOne() throws Exception {
+        return converter.convertToTape(source()).root().get("anagrafica").get("testata").get("data").textValue();
+    }
+
+    @Benchmark
+    public int treeSerialize() throws Exception {
+        JsonNode tree = converter.convert(source());
+        out.reset();
+        try (JsonGenerator generator = OutputFormat.JSON.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            MAPPER.writeTree(generator, tree);
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public int tapeSerialize() throws Exception {
+        JsonTape tape = converter.convertToTape(source());
+        out.reset();
+        try (JsonGenerator generator = OutputFormat.JSON.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            tape.serialize(generator);
+        }
+        return out.size();
+    }
+
+    private InputSource source() {
+        return new InputSource(new ByteArrayInputStream(content));
+    }
+}
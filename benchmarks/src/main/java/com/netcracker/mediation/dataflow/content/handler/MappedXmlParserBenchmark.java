@@ -0,0 +1,61 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MappedXmlParserBenchmark {
+
+    @Param({"20000", "200000"})
+    private int records;
+
+    private Path file;
+    private XmlToJsonConverter converter;
+    private OutputStream out;
+
+    @Setup
+    public void setUp(Blackhole blackhole) throws Exception {
+        file = Files.createTempFile("records", ".xml");
+        Files.write(file, Documents.large(records));
+        converter = new XmlToJsonConverter().setStreaming(true);
+        out = new OutputStream() {
+            @Override
+            public void write(int b) {
+                blackhole.consume(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                blackhole.consume(b);
+            }
+        };
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public void stream() throws Exception {
+        try (InputStream in = Files.newInputStream(file)) {
+            converter.convert(in, out);
+        }
+    }
+
+    @Benchmark
+    public void mapped() throws Exception {
+        converter.convert(file, out);
+    }
+}
@@ -0,0 +1,69 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing and reading the output formats. The bytes written are reported as the {@code bytes} counter of
+ * {@link #write}; divided by its score they give the size of one document in the format.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OutputFormatBenchmark {
+
+    @Param({"arrayAnagrafica.xml", "arrayCd.xml", "large"})
+    private String document;
+
+    @Param({"JSON", "SMILE", "CBOR"})
+    private OutputFormat format;
+
+    private byte[] content;
+    private byte[] output;
+    private XmlToJsonConverter converter;
+    private ObjectMapper mapper;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setUp() throws Exception {
+        content = Documents.load(document);
+        converter = new XmlToJsonConverter(new ElementValueHolderFactory().setConvertToJsonPrimitives(true))
+                .setOutputFormat(format);
+        mapper = new ObjectMapper(format.getFactory());
+        out = new ByteArrayOutputStream(content.length);
+        converter.convert(new ByteArrayInputStream(content), out);
+        output = out.toByteArray();
+    }
+
+    @Benchmark
+    public int write(Written written) throws Exception {
+        out.reset();
+        converter.convert(new ByteArrayInputStream(content), out);
+        written.bytes += out.size();
+        return out.size();
+    }
+
+    @Benchmark
+    public JsonNode read() throws Exception {
+        return mapper.readTree(output);
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Written {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.*;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelXmlToJsonConverterBenchmark {
+
+    @Param({"20000", "200000"})
+    private int records;
+
+    @Param({"1", "4", "0"})
+    private int parallelism;
+
+    private byte[] content;
+    private ElementValueHolderFactory factory;
+    private ForkJoinPool pool;
+    private ParallelXmlToJsonConverter converter;
+
+    @Setup
+    public void setUp() {
+        content = Documents.large(records);
+        factory = new ElementValueHolderFactory().setConvertToJsonPrimitives(true);
+        pool = parallelism == 0 ? ForkJoinPool.commonPool() : new ForkJoinPool(parallelism);
+        converter = new ParallelXmlToJsonConverter("/anagrafica/record", factory).setPool(pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pool != ForkJoinPool.commonPool()) pool.shutdown();
+    }
+
+    @Benchmark
+    public JsonNode sequential() throws Exception {
+        SaxJsonContentHandler handler = new SaxJsonContentHandler(factory);
+        XMLReader xmlReader = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
+        xmlReader.setContentHandler(handler);
+        xmlReader.parse(new InputSource(new ByteArrayInputStream(content)));
+        return handler.getTree();
+    }
+
+    @Benchmark
+    public JsonNode parallel() throws Exception {
+        return converter.convert(content);
+    }
+}
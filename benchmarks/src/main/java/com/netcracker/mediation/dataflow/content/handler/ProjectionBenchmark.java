@@ -0,0 +1,36 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.*;
+import org.xml.sax.InputSource;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProjectionBenchmark {
+
+    @Param({"", "/anagrafica/record/codice_cliente", "//indirizzo"})
+    private String include;
+
+    private byte[] content;
+    private SaxJsonConverter converter;
+
+    @Setup
+    public void setUp() throws Exception {
+        content = Documents.load("large");
+        ElementValueHolderFactory factory = new ElementValueHolderFactory();
+        if (!include.isEmpty()) factory.setProjection(new Projection().include(include));
+        converter = new SaxJsonConverter(factory, 1);
+    }
+
+    @Benchmark
+    public JsonNode convert() throws Exception {
+        return converter.convert(new InputSource(new ByteArrayInputStream(content)));
+    }
+}
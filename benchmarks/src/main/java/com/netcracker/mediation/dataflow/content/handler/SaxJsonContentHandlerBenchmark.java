@@ -0,0 +1,58 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.*;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SaxJsonContentHandlerBenchmark {
+
+    @Param({"oneNode.xml", "arrayCd.xml", "arrayAnagrafica.xml", "nestedNode.xml", "large", "deep", "wide"})
+    private String document;
+
+    @Param({"false", "true"})
+    private boolean convertToJsonPrimitives;
+
+    @Param({"false", "true"})
+    private boolean usePrefixForAttributes;
+
+    private byte[] content;
+    private XMLReader xmlReader;
+    private ElementValueHolderFactory factory;
+    private SaxJsonContentHandler reusedHandler;
+
+    @Setup
+    public void setUp() throws Exception {
+        content = Documents.load(document);
+        xmlReader = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
+        factory = new ElementValueHolderFactory()
+                .setConvertToJsonPrimitives(convertToJsonPrimitives)
+                .setUsePrefixForAttributes(usePrefixForAttributes);
+        reusedHandler = new SaxJsonContentHandler(factory);
+    }
+
+    @Benchmark
+    public JsonNode convert() throws Exception {
+        SaxJsonContentHandler handler = new SaxJsonContentHandler(factory);
+        xmlReader.setContentHandler(handler);
+        xmlReader.parse(new InputSource(new ByteArrayInputStream(content)));
+        return handler.getTree();
+    }
+
+    @Benchmark
+    public JsonNode convertReused() throws Exception {
+        xmlReader.setContentHandler(reusedHandler.reset());
+        xmlReader.parse(new InputSource(new ByteArrayInputStream(content)));
+        return reusedHandler.getTree();
+    }
+}
@@ -0,0 +1,47 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.*;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SaxJsonConverterBenchmark {
+
+    @Param({"oneNode.xml", "arrayCd.xml"})
+    private String document;
+
+    private byte[] content;
+    private ElementValueHolderFactory factory;
+    private SaxJsonConverter converter;
+
+    @Setup
+    public void setUp() throws Exception {
+        content = Documents.load(document);
+        factory = new ElementValueHolderFactory();
+        converter = new SaxJsonConverter(factory, Runtime.getRuntime().availableProcessors());
+    }
+
+    @Benchmark
+    public JsonNode newParser() throws Exception {
+        XMLReader xmlReader = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
+        SaxJsonContentHandler handler = new SaxJsonContentHandler(factory);
+        xmlReader.setContentHandler(handler);
+        xmlReader.parse(new InputSource(new ByteArrayInputStream(content)));
+        return handler.getTree();
+    }
+
+    @Benchmark
+    public JsonNode pooled() throws Exception {
+        return converter.convert(new InputSource(new ByteArrayInputStream(content)));
+    }
+}
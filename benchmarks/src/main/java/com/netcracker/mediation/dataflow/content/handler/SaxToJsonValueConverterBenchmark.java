@@ -0,0 +1,29 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.node.ValueNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SaxToJsonValueConverterBenchmark {
+
+    @Param({"13", "-1112", "4294967296", "12345678901234567890", "10.90", "true", "FALSE", "IT07654930130", "Mercato di test"})
+    private String text;
+
+    @Param({"false", "true"})
+    private boolean convertToJsonPrimitives;
+
+    @Param({"false", "true"})
+    private boolean useBigDecimalForFloats;
+
+    @Benchmark
+    public ValueNode convert() {
+        return SaxToJsonValueConverter.convert(text, convertToJsonPrimitives, useBigDecimalForFloats);
+    }
+}
@@ -0,0 +1,58 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.*;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StaxJsonConverterBenchmark {
+
+    @Param({"arrayAnagrafica.xml", "large", "deep", "wide"})
+    private String document;
+
+    @Param({"false", "true"})
+    private boolean convertToJsonPrimitives;
+
+    private byte[] content;
+    private XMLReader xmlReader;
+    private XMLInputFactory inputFactory;
+    private ElementValueHolderFactory factory;
+
+    @Setup
+    public void setUp() throws Exception {
+        content = Documents.load(document);
+        xmlReader = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
+        inputFactory = XMLInputFactory.newFactory();
+        factory = new ElementValueHolderFactory().setConvertToJsonPrimitives(convertToJsonPrimitives);
+    }
+
+    @Benchmark
+    public JsonNode sax() throws Exception {
+        SaxJsonContentHandler handler = new SaxJsonContentHandler(factory);
+        xmlReader.setContentHandler(handler);
+        xmlReader.parse(new InputSource(new ByteArrayInputStream(content)));
+        return handler.getTree();
+    }
+
+    @Benchmark
+    public JsonNode stax() throws Exception {
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(new ByteArrayInputStream(content));
+        try {
+            return new StaxJsonConverter(factory).convert(reader);
+        } finally {
+            reader.close();
+        }
+    }
+}
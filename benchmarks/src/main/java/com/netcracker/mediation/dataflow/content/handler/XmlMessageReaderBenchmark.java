@@ -0,0 +1,70 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.*;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class XmlMessageReaderBenchmark {
+
+    private static final int MESSAGES = 100;
+
+    @Param({"oneNode.xml", "arrayCd.xml"})
+    private String document;
+
+    private byte[] message;
+    private byte[] stream;
+    private ElementValueHolderFactory factory;
+    private SaxJsonConverter converter;
+
+    @Setup
+    public void setUp() throws Exception {
+        message = Documents.load(document);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int index = 0; index < MESSAGES; index++) {
+            out.write(message);
+            out.write('\n');
+        }
+        stream = out.toByteArray();
+        factory = new ElementValueHolderFactory();
+        converter = new SaxJsonConverter(factory, 1);
+    }
+
+    /**
+     * The messages already split, each parsed by a new pair.
+     */
+    @Benchmark
+    public int newParserPerMessage() throws Exception {
+        int size = 0;
+        for (int index = 0; index < MESSAGES; index++) {
+            XMLReader xmlReader = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
+            SaxJsonContentHandler handler = new SaxJsonContentHandler(factory);
+            xmlReader.setContentHandler(handler);
+            xmlReader.parse(new InputSource(new ByteArrayInputStream(message)));
+            size += handler.getTree().size();
+        }
+        return size;
+    }
+
+    @Benchmark
+    public int messageReader() throws Exception {
+        int size = 0;
+        try (XmlMessageReader reader = converter.readMessages(new ByteArrayInputStream(stream))) {
+            for (JsonNode tree = reader.next(); tree != null; tree = reader.next()) {
+                size += tree.size();
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,69 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class XmlToJsonConverterBenchmark {
+
+    @Param({"arrayAnagrafica.xml", "large", "wide"})
+    private String document;
+
+    private byte[] content;
+    private XMLReader xmlReader;
+    private ElementValueHolderFactory factory;
+    private XmlToJsonConverter converter;
+    private XmlToJsonConverter streamingConverter;
+    private OutputStream out;
+
+    @Setup
+    public void setUp(Blackhole blackhole) throws Exception {
+        content = Documents.load(document);
+        xmlReader = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
+        factory = new ElementValueHolderFactory();
+        converter = new XmlToJsonConverter(factory);
+        streamingConverter = new XmlToJsonConverter(factory).setStreaming(true);
+        out = new OutputStream() {
+            @Override
+            public void write(int b) {
+                blackhole.consume(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                blackhole.consume(b);
+            }
+        };
+    }
+
+    @Benchmark
+    public byte[] treeToString() throws Exception {
+        SaxJsonContentHandler handler = new SaxJsonContentHandler(factory);
+        xmlReader.setContentHandler(handler);
+        xmlReader.parse(new InputSource(new ByteArrayInputStream(content)));
+        return handler.getTree().toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void convert() throws Exception {
+        converter.convert(new ByteArrayInputStream(content), out);
+    }
+
+    @Benchmark
+    public void convertStreaming() throws Exception {
+        streamingConverter.convert(new ByteArrayInputStream(content), out);
+    }
+}
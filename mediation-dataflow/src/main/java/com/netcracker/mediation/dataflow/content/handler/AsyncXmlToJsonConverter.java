@@ -0,0 +1,184 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.aalto.AsyncByteArrayFeeder;
+import com.fasterxml.aalto.AsyncXMLInputFactory;
+import com.fasterxml.aalto.AsyncXMLStreamReader;
+import com.fasterxml.aalto.stax.InputFactoryImpl;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Non-blocking converter of one document that arrives in chunks. Every chunk is parsed as far as it goes and
+ * the element stack is kept until the next one, so no thread waits for input. {@code feed} returns {@code true}
+ * once the root element is closed; records are passed to the {@link RecordListener} as soon as they end.
+ * The bytes of the chunk after the root element, but for the whitespace, are kept and parsed first after
+ * {@link #reset()}, so a chunk can hold the end of one document and the start of the next; feeding an empty
+ * chunk parses just the kept bytes.
+ */
+public class AsyncXmlToJsonConverter {
+
+    private static final AsyncXMLInputFactory INPUT_FACTORY = new InputFactoryImpl();
+    private static final byte[] EMPTY = new byte[0];
+
+    private final SaxJsonContentHandler handler;
+    private AsyncXMLStreamReader<AsyncByteArrayFeeder> reader;
+    private byte[] chunk = EMPTY;
+    private byte[] remaining = EMPTY;
+    private long fed;
+    private int depth;
+    private boolean complete;
+
+    public AsyncXmlToJsonConverter() {
+        this(new ElementValueHolderFactory());
+    }
+
+    public AsyncXmlToJsonConverter(ElementValueHolderFactory elementValueFactory) {
+        this.handler = new SaxJsonContentHandler(elementValueFactory);
+        reset();
+    }
+
+    public boolean feed(byte[] data) throws XMLStreamException {
+        return feed(data, 0, data.length);
+    }
+
+    /**
+     * A slice past the start of the array is copied into a reused array first.
+     */
+    public boolean feed(byte[] data, int offset, int length) throws XMLStreamException {
+        if (complete) throw new IllegalStateException("The document is already complete");
+        if (remaining.length > 0) {
+            byte[] input = Arrays.copyOf(remaining, remaining.length + length);
+            System.arraycopy(data, offset, input, remaining.length, length);
+            remaining = EMPTY;
+            return feed(input, 0, input.length);
+        }
+        if (length == 0) return false;
+        if (offset > 0) {
+            if (chunk.length < length) chunk = new byte[length];
+            System.arraycopy(data, offset, chunk, 0, length);
+            return feed(chunk, 0, length);
+        }
+
+        reader.getInputFeeder().feedInput(data, 0, length);
+        fed += length;
+        if (!parse()) return false;
+
+        keepRemaining(data, length);
+        return true;
+    }
+
+    /**
+     * Consumes the remaining bytes of the buffer. A direct buffer is copied into a reused array first.
+     */
+    public boolean feed(ByteBuffer buffer) throws XMLStreamException {
+        int length = buffer.remaining();
+        if (buffer.hasArray()) {
+            boolean result = feed(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+            buffer.position(buffer.limit());
+            return result;
+        }
+
+        if (chunk.length < length) chunk = new byte[length];
+        buffer.get(chunk, 0, length);
+        return feed(chunk, 0, length);
+    }
+
+    /**
+     * Tells the parser no more bytes will come; fails if the root element is still open.
+     */
+    public boolean endOfInput() throws XMLStreamException {
+        if (complete || feed(EMPTY)) return true;
+
+        reader.getInputFeeder().endOfInput();
+        parse();
+        if (!complete) throw new XMLStreamException("The document is still opened");
+        return true;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public JsonNode getTree() {
+        return complete ? handler.getTree() : null;
+    }
+
+    /**
+     * @return bytes fed after the root element of the last document, kept for the next one
+     */
+    public int getRemaining() {
+        return remaining.length;
+    }
+
+    /**
+     * Drops the current state and gets ready for a new document; the bytes kept from the last one stay.
+     */
+    public AsyncXmlToJsonConverter reset() {
+        if (reader != null) closeQuietly();
+
+        reader = INPUT_FACTORY.createAsyncForByteArray();
+        handler.openDocument();
+        fed = 0;
+        depth = 0;
+        complete = false;
+        return this;
+    }
+
+    public ElementValueHolderFactory getElementValueFactory() {
+        return handler.getElementValueFactory();
+    }
+
+    public String getRecordPath() {
+        return handler.getRecordPath();
+    }
+
+    public RecordListener getRecordListener() {
+        return handler.getRecordListener();
+    }
+
+    public AsyncXmlToJsonConverter setRecordListener(String recordPath, RecordListener recordListener) {
+        handler.setRecordListener(recordPath, recordListener);
+        return this;
+    }
+
+    private boolean parse() throws XMLStreamException {
+        while (!complete) {
+            int event = reader.next();
+            if (event == AsyncXMLStreamReader.EVENT_INCOMPLETE || event == XMLStreamConstants.END_DOCUMENT) break;
+
+            StaxJsonConverter.handle(handler, reader, event);
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT && --depth == 0) {
+                handler.closeDocument();
+                complete = true;
+            }
+        }
+        return complete;
+    }
+
+    /**
+     * Keeps the bytes of the chunk the parser didn't get to; the chunks before it were all parsed. The parser adds
+     * the offset of the last chunk to its location, so chunks are fed from the start of an array.
+     */
+    private void keepRemaining(byte[] data, int end) throws XMLStreamException {
+        int from = end - (int) (fed - reader.getLocationInfo().getEndingByteOffset());
+        while (from < end && isWhitespace(data[from])) from++;
+        remaining = from == end ? EMPTY : Arrays.copyOfRange(data, from, end);
+    }
+
+    private static boolean isWhitespace(byte ch) {
+        return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\r';
+    }
+
+    private void closeQuietly() {
+        try {
+            reader.close();
+        } catch (XMLStreamException ignored) {
+        }
+    }
+}
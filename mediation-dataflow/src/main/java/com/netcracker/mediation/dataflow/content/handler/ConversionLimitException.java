@@ -0,0 +1,45 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import org.apache.commons.lang3.StringUtils;
+import org.xml.sax.SAXException;
+
+/**
+ * Thrown when a document goes over one of the {@link ConversionLimits}.
+ */
+public class ConversionLimitException extends SAXException {
+
+    private final ConversionLimits.Limit limit;
+    private final long value;
+    private final long maxValue;
+    private final String path;
+
+    /**
+     * @param value the value that went over the limit, like the number of elements so far
+     */
+    public ConversionLimitException(ConversionLimits.Limit limit, long value, long maxValue, String path) {
+        super(StringUtils.capitalize(limit.toString()) + " " + value + " exceeds limit " + maxValue + " at " + path);
+        this.limit = limit;
+        this.value = value;
+        this.maxValue = maxValue;
+        this.path = path;
+    }
+
+    public ConversionLimits.Limit getLimit() {
+        return limit;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public long getMaxValue() {
+        return maxValue;
+    }
+
+    /**
+     * @return path of the element where the limit was reached, like {@code /CATALOG/CD}
+     */
+    public String getPath() {
+        return path;
+    }
+}
@@ -0,0 +1,79 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+/**
+ * Bounds of one conversion, set with {@link ElementValueHolderFactory#setLimits}, so the memory a document can
+ * take is known up front. A conversion that goes over a bound fails with {@link ConversionLimitException}.
+ * Elements dropped by a {@link Projection} aren't counted.
+ */
+public class ConversionLimits {
+
+    public enum Limit {
+        DEPTH("element depth"),
+        ELEMENTS("element count"),
+        TEXT_LENGTH("text length"),
+        ARRAY_LENGTH("array length");
+
+        private final String description;
+
+        Limit(String description) {
+            this.description = description;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    private int maxDepth = Integer.MAX_VALUE;
+    private long maxElements = Long.MAX_VALUE;
+    private int maxTextLength = Integer.MAX_VALUE;
+    private int maxArrayLength = Integer.MAX_VALUE;
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @param maxDepth 1 allows only the root element
+     */
+    public ConversionLimits setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    public long getMaxElements() {
+        return maxElements;
+    }
+
+    public ConversionLimits setMaxElements(long maxElements) {
+        this.maxElements = maxElements;
+        return this;
+    }
+
+    public int getMaxTextLength() {
+        return maxTextLength;
+    }
+
+    /**
+     * @param maxTextLength chars of the text of one element
+     */
+    public ConversionLimits setMaxTextLength(int maxTextLength) {
+        this.maxTextLength = maxTextLength;
+        return this;
+    }
+
+    public int getMaxArrayLength() {
+        return maxArrayLength;
+    }
+
+    /**
+     * @param maxArrayLength values of one array built from repeated elements, counted by
+     *                       {@link SaxJsonStreamingHandler} as the elements open; {@link SaxJsonTapeHandler} builds
+     *                       arrays only when the tape is read and doesn't check it
+     */
+    public ConversionLimits setMaxArrayLength(int maxArrayLength) {
+        this.maxArrayLength = maxArrayLength;
+        return this;
+    }
+}
@@ -0,0 +1,38 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.node.ValueNode;
+
+/**
+ * Receives what {@link SaxJsonContentHandler}, {@link SaxJsonStreamingHandler} and the converters built on them do,
+ * set with {@link ElementValueHolderFactory#setConversionListener}. A listener shared by converters is called from all
+ * their threads. Without a listener the converters skip the calls and don't read the clock.
+ */
+public interface ConversionListener {
+
+    enum Phase {
+        /**
+         * Reading the document, without the time spent building the nodes.
+         */
+        PARSE,
+        BUILD,
+        SERIALIZE
+    }
+
+    /**
+     * @param depth 1 for the root element
+     */
+    default void onElement(int depth, int attributes) {
+    }
+
+    /**
+     * @param length number of chars; a text may come in several parts
+     */
+    default void onText(int length) {
+    }
+
+    default void onValue(ValueNode value) {
+    }
+
+    default void onPhase(Phase phase, long nanos) {
+    }
+}
@@ -0,0 +1,115 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.node.ValueNode;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link ConversionListener} that sums up the conversions of any number of threads with lock-free counters.
+ */
+public class ConversionMetrics implements ConversionListener {
+
+    public enum ValueType {
+        TEXT, BOOLEAN, INT, LONG, BIG_INTEGER, DOUBLE, BIG_DECIMAL;
+
+        static ValueType of(ValueNode value) {
+            if (value.isBoolean()) return BOOLEAN;
+            if (!value.isNumber()) return TEXT;
+
+            switch (value.numberType()) {
+                case INT:
+                    return INT;
+                case LONG:
+                    return LONG;
+                case BIG_INTEGER:
+                    return BIG_INTEGER;
+                case BIG_DECIMAL:
+                    return BIG_DECIMAL;
+                default:
+                    return DOUBLE;
+            }
+        }
+    }
+
+    private final LongAdder elements = new LongAdder();
+    private final LongAdder attributes = new LongAdder();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private final LongAdder textLength = new LongAdder();
+    private final LongAdder[] values = newAdders(ValueType.values().length);
+    private final LongAdder[] phaseCounts = newAdders(Phase.values().length);
+    private final LongAdder[] phaseNanos = newAdders(Phase.values().length);
+
+    @Override
+    public void onElement(int depth, int attributes) {
+        elements.increment();
+        this.attributes.add(attributes);
+        maxDepth.accumulate(depth);
+    }
+
+    @Override
+    public void onText(int length) {
+        textLength.add(length);
+    }
+
+    @Override
+    public void onValue(ValueNode value) {
+        values[ValueType.of(value).ordinal()].increment();
+    }
+
+    @Override
+    public void onPhase(Phase phase, long nanos) {
+        phaseCounts[phase.ordinal()].increment();
+        phaseNanos[phase.ordinal()].add(nanos);
+    }
+
+    public long getElements() {
+        return elements.sum();
+    }
+
+    public long getAttributes() {
+        return attributes.sum();
+    }
+
+    public long getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    public long getTextLength() {
+        return textLength.sum();
+    }
+
+    public long getValues(ValueType type) {
+        return values[type.ordinal()].sum();
+    }
+
+    /**
+     * @return how many times the phase was timed, e.g. the number of documents parsed
+     */
+    public long getPhaseCount(Phase phase) {
+        return phaseCounts[phase.ordinal()].sum();
+    }
+
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()].sum();
+    }
+
+    /**
+     * Starts counting from zero; counts made at the same time by other threads may be kept or lost.
+     */
+    public void reset() {
+        elements.reset();
+        attributes.reset();
+        maxDepth.reset();
+        textLength.reset();
+        for (LongAdder adder : values) adder.reset();
+        for (LongAdder adder : phaseCounts) adder.reset();
+        for (LongAdder adder : phaseNanos) adder.reset();
+    }
+
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int index = 0; index < count; index++) adders[index] = new LongAdder();
+        return adders;
+    }
+}
@@ -0,0 +1,164 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import org.xml.sax.Attributes;
+
+import javax.xml.stream.XMLStreamReader;
+import java.util.Arrays;
+
+/**
+ * Copy of the attributes of one element. SAX parsers reuse their {@link Attributes} object,
+ * so it can't be kept until the element ends; instances of this class are reused instead.
+ * As {@link Attributes} it looks like the attributes of a parser that isn't namespace aware.
+ */
+public class ElementAttributes implements Attributes {
+
+    private static final String CDATA = "CDATA";
+    private static final int INITIAL_CAPACITY = 8;
+
+    private String[] names = new String[INITIAL_CAPACITY];
+    private String[] values = new String[INITIAL_CAPACITY];
+    private int length;
+    private final SymbolTable symbols;
+
+    public ElementAttributes() {
+        this(null);
+    }
+
+    /**
+     * @param symbols canonicalizes the names and caches their prefixed keys; may be {@code null}
+     */
+    public ElementAttributes(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    public ElementAttributes copyOf(Attributes attributes) {
+        if (attributes == this) return this;
+        clear();
+
+        int count = attributes.getLength();
+        ensureCapacity(count);
+
+        for (int index = 0; index < count; index++) {
+            names[index] = symbols == null ? attributes.getQName(index) : symbols.lookup(attributes.getQName(index));
+            values[index] = attributes.getValue(index);
+        }
+        length = count;
+        return this;
+    }
+
+    /**
+     * Copies the attributes of the current start element. Namespace declarations are kept as
+     * {@code xmlns} attributes, the way a SAX parser reports them when it isn't namespace aware.
+     */
+    public ElementAttributes copyOf(XMLStreamReader reader) {
+        clear();
+
+        int namespaces = reader.getNamespaceCount();
+        int count = namespaces + reader.getAttributeCount();
+        ensureCapacity(count);
+
+        for (int index = 0; index < namespaces; index++) {
+            String prefix = reader.getNamespacePrefix(index);
+            names[index] = prefix == null || prefix.isEmpty() ? "xmlns" : qName("xmlns", prefix);
+            String uri = reader.getNamespaceURI(index);
+            values[index] = uri == null ? "" : uri;
+        }
+        for (int index = namespaces; index < count; index++) {
+            names[index] = qName(reader.getAttributePrefix(index - namespaces), reader.getAttributeLocalName(index - namespaces));
+            values[index] = reader.getAttributeValue(index - namespaces);
+        }
+        length = count;
+        return this;
+    }
+
+    private String qName(String prefix, String localName) {
+        if (symbols != null) return symbols.lookup(prefix, localName);
+        return prefix == null || prefix.isEmpty() ? localName : prefix + ':' + localName;
+    }
+
+    public void clear() {
+        Arrays.fill(names, 0, length, null);
+        Arrays.fill(values, 0, length, null);
+        length = 0;
+    }
+
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public String getURI(int index) {
+        return contains(index) ? "" : null;
+    }
+
+    @Override
+    public String getLocalName(int index) {
+        return contains(index) ? "" : null;
+    }
+
+    @Override
+    public String getQName(int index) {
+        return contains(index) ? names[index] : null;
+    }
+
+    public String getQName(int index, String prefix) {
+        return symbols == null ? prefix + names[index] : symbols.prefixed(prefix, names[index]);
+    }
+
+    @Override
+    public String getType(int index) {
+        return contains(index) ? CDATA : null;
+    }
+
+    @Override
+    public String getValue(int index) {
+        return contains(index) ? values[index] : null;
+    }
+
+    @Override
+    public int getIndex(String uri, String localName) {
+        return -1;
+    }
+
+    @Override
+    public int getIndex(String qName) {
+        for (int index = 0; index < length; index++) {
+            if (names[index].equals(qName)) return index;
+        }
+        return -1;
+    }
+
+    @Override
+    public String getType(String uri, String localName) {
+        return null;
+    }
+
+    @Override
+    public String getType(String qName) {
+        return getIndex(qName) < 0 ? null : CDATA;
+    }
+
+    @Override
+    public String getValue(String uri, String localName) {
+        return null;
+    }
+
+    @Override
+    public String getValue(String qName) {
+        int index = getIndex(qName);
+        return index < 0 ? null : values[index];
+    }
+
+    private boolean contains(int index) {
+        return index >= 0 && index < length;
+    }
+
+    private void ensureCapacity(int count) {
+        if (count <= names.length) return;
+
+        int capacity = Math.max(count, names.length * 2);
+        names = new String[capacity];
+        values = new String[capacity];
+    }
+}
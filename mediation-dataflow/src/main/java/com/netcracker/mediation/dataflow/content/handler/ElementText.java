@@ -0,0 +1,123 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+/**
+ * Text of one element, kept as a slice of a {@link TextArena}. Leading whitespace is never stored, so blank text
+ * is detected without building a string; trimming and conversion to primitives read the slice in place, and the
+ * trimmed value is created at most once, only when a string is asked for.
+ */
+public class ElementText {
+
+    private final TextArena arena;
+    private final boolean isOwnArena;
+    private int start;
+    private int length;
+    private String value;
+
+    /**
+     * Text with an arena of its own.
+     */
+    public ElementText() {
+        this(new TextArena(), true);
+    }
+
+    /**
+     * @param arena shared by the texts of one conversion; the owner of the texts calls {@link #release()} when an
+     *              element closes
+     */
+    public ElementText(TextArena arena) {
+        this(arena, false);
+    }
+
+    private ElementText(TextArena arena, boolean isOwnArena) {
+        this.arena = arena;
+        this.isOwnArena = isOwnArena;
+    }
+
+    public void append(char[] ch, int start, int length) {
+        int end = start + length;
+        if (this.length == 0) {
+            while (start < end && ch[start] <= ' ') start++;
+            if (start == end) return;
+            this.start = arena.top();
+        }
+
+        arena.append(this.start + this.length, ch, start, end - start);
+        this.length += end - start;
+        value = null;
+    }
+
+    public void append(String text) {
+        int start = 0;
+        if (length == 0) {
+            while (start < text.length() && text.charAt(start) <= ' ') start++;
+            if (start == text.length()) return;
+            this.start = arena.top();
+        }
+
+        arena.append(this.start + length, text, start);
+        length += text.length() - start;
+        value = null;
+    }
+
+    /**
+     * @return number of chars stored, without the leading whitespace
+     */
+    public int length() {
+        return length;
+    }
+
+    public boolean isBlank() {
+        return length == 0;
+    }
+
+    public String getValue() {
+        if (value == null) value = new String(arena.chars(), start, trimmedLength());
+        return value;
+    }
+
+    /**
+     * @return number of chars of the trimmed value
+     */
+    public int trimmedLength() {
+        char[] chars = arena.chars();
+        int end = start + length;
+        while (end > start && chars[end - 1] <= ' ') end--;
+        return end - start;
+    }
+
+    /**
+     * Copies the trimmed value without creating a string.
+     */
+    public void getChars(char[] dst, int dstBegin) {
+        System.arraycopy(arena.chars(), start, dst, dstBegin, trimmedLength());
+    }
+
+    /**
+     * @return the array of the arena, valid until the next text is appended to it
+     */
+    public char[] getBuffer() {
+        return arena.chars();
+    }
+
+    /**
+     * @return offset of the text in {@link #getBuffer()}
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Gives the chars back to a shared arena once the value is read; the text is empty afterwards.
+     */
+    public void release() {
+        if (length > 0) arena.release(start);
+        length = 0;
+        value = null;
+    }
+
+    public void clear() {
+        if (isOwnArena) arena.clear();
+        length = 0;
+        value = null;
+    }
+}
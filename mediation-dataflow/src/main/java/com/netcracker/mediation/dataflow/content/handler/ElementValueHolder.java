@@ -0,0 +1,308 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.*;
+import com.google.common.collect.ForwardingMultimap;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.Multimap;
+import org.xml.sax.Attributes;
+
+import java.util.Iterator;
+import java.util.Map;
+
+public class ElementValueHolder {
+
+    private JsonNodeFactory factory = JsonNodeFactory.instance;
+
+    private String name;
+    private final ElementText text;
+    private ElementAttributes attributes;
+    private ObjectNode children;
+    private String lastChildName;
+    private ArrayNode lastChildArray;
+    private JsonNode node;
+    private boolean isRoot = false;
+
+    private final ElementValueHolderFactory elementValueFactory;
+    private boolean isConvertToJsonPrimitives;
+    private boolean isUseBigDecimalForFloats;
+    private String valuePrefix;
+    private boolean isUsePrefixForAttributes;
+    private String attrPrefix;
+    private ConversionListener conversionListener;
+
+    public ElementValueHolder(
+            String valuePrefix,
+            boolean isConvertToJsonPrimitives,
+            boolean isUsePrefixForAttributes,
+            String attrPrefix
+    ) {
+        this(newFactory(valuePrefix, isConvertToJsonPrimitives, isUsePrefixForAttributes, attrPrefix));
+    }
+
+    public ElementValueHolder(
+            String name,
+            Attributes attributes,
+            String valuePrefix,
+            boolean isConvertToJsonPrimitives,
+            boolean isUsePrefixForAttributes,
+            String attrPrefix
+            ) {
+        this(
+                name,
+                new ElementAttributes().copyOf(attributes),
+                newFactory(valuePrefix, isConvertToJsonPrimitives, isUsePrefixForAttributes, attrPrefix)
+        );
+    }
+
+    public ElementValueHolder(ElementValueHolderFactory elementValueFactory) {
+        this(null, new ElementAttributes(), elementValueFactory);
+        this.isRoot = true;
+    }
+
+    public ElementValueHolder(String name, ElementAttributes attributes, ElementValueHolderFactory elementValueFactory) {
+        this(name, attributes, elementValueFactory, null);
+    }
+
+    /**
+     * @param arena keeps the text together with the text of the other holders of a conversion; the holder gets
+     *              an arena of its own when it's {@code null}
+     */
+    public ElementValueHolder(
+            String name,
+            ElementAttributes attributes,
+            ElementValueHolderFactory elementValueFactory,
+            TextArena arena
+    ) {
+        this.elementValueFactory = elementValueFactory;
+        this.text = arena == null ? new ElementText() : new ElementText(arena);
+        reset(name, attributes);
+    }
+
+    private static ElementValueHolderFactory newFactory(
+            String valuePrefix,
+            boolean isConvertToJsonPrimitives,
+            boolean isUsePrefixForAttributes,
+            String attrPrefix
+    ) {
+        return new ElementValueHolderFactory()
+                .setValuePrefix(valuePrefix)
+                .setConvertToJsonPrimitives(isConvertToJsonPrimitives)
+                .setUsePrefixForAttributes(isUsePrefixForAttributes)
+                .setAttrPrefix(attrPrefix);
+    }
+
+    /**
+     * Makes the holder ready for another element, so one holder per depth serves a whole document.
+     * The settings are read from the factory again.
+     */
+    public ElementValueHolder reset(String name, ElementAttributes attributes) {
+        this.name = name;
+        this.attributes = attributes;
+        text.clear();
+        children = null;
+        lastChildName = null;
+        lastChildArray = null;
+        node = null;
+
+        isConvertToJsonPrimitives = elementValueFactory.isConvertToJsonPrimitives();
+        isUseBigDecimalForFloats = elementValueFactory.isUseBigDecimalForFloats();
+        valuePrefix = elementValueFactory.getValuePrefix();
+        isUsePrefixForAttributes = elementValueFactory.isUsePrefixForAttributes();
+        attrPrefix = elementValueFactory.getAttrPrefix();
+        conversionListener = elementValueFactory.getConversionListener();
+        return this;
+    }
+
+    public void clear() {
+        attributes.clear();
+        reset(null, attributes);
+    }
+
+    /**
+     * Clears the attributes and gives the text back to the arena once the node is built.
+     */
+    public void release() {
+        attributes.clear();
+        text.release();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ElementAttributes getAttributes() {
+        return attributes;
+    }
+
+    public String getValue() {
+        return text.getValue();
+    }
+
+    public int getValueLength() {
+        return text.length();
+    }
+
+    public void setValue(String value) {
+        text.append(value);
+    }
+
+    public void appendValue(char[] ch, int start, int length) {
+        text.append(ch, start, length);
+    }
+
+    public boolean hasChildren() {
+        return children != null;
+    }
+
+    public int addChild(String childName, JsonNode childNode) {
+        return addChild(childName, childNode, false);
+    }
+
+    /**
+     * @param isArray put the value into an array even if it's the first one with this name
+     * @return number of values with this name
+     */
+    public int addChild(String childName, JsonNode childNode, boolean isArray) {
+        if (children == null) children = factory.objectNode();
+
+        if (lastChildArray != null && childName.equals(lastChildName)) {
+            lastChildArray.add(childNode);
+            return lastChildArray.size();
+        }
+
+        lastChildName = childName;
+        JsonNode sameNode = isArray ? children.get(childName) : children.replace(childName, childNode);
+        if (sameNode == null && !isArray) {
+            lastChildArray = null;
+            return 1;
+        }
+
+        if (sameNode != null && sameNode.isArray()) {
+            lastChildArray = (ArrayNode) sameNode;
+        } else {
+            lastChildArray = factory.arrayNode();
+            if (sameNode != null) lastChildArray.add(sameNode);
+        }
+        lastChildArray.add(childNode);
+        if (!isArray || lastChildArray != sameNode) children.set(childName, lastChildArray);
+        return lastChildArray.size();
+    }
+
+    /**
+     * @deprecated the children are kept in an {@link ObjectNode}; this is a copy of them by value, and a value put
+     * into it is added to the holder with {@link #addChild(String, JsonNode)}
+     */
+    @Deprecated
+    public Multimap<JsonNode, String> getChildren() {
+        final LinkedListMultimap<JsonNode, String> copy = LinkedListMultimap.create();
+        if (children != null) {
+            Iterator<Map.Entry<String, JsonNode>> fields = children.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (!field.getValue().isArray()) {
+                    copy.put(field.getValue(), field.getKey());
+                    continue;
+                }
+                for (JsonNode value : field.getValue()) copy.put(value, field.getKey());
+            }
+        }
+
+        return new ForwardingMultimap<JsonNode, String>() {
+            @Override
+            protected Multimap<JsonNode, String> delegate() {
+                return copy;
+            }
+
+            @Override
+            public boolean put(JsonNode key, String value) {
+                addChild(value, key);
+                return super.put(key, value);
+            }
+        };
+    }
+
+    public ObjectNode copyChildren() {
+        return children == null ? factory.objectNode() : children.deepCopy();
+    }
+
+    /**
+     * Builds the node once; later calls return the same node until the holder is reset.
+     */
+    public JsonNode buildNode() {
+        if (node != null) return node;
+
+        if (isRoot) {
+            node = buildObjectNode();
+        } else if (attributes.getLength() > 0 || children != null) {
+            ObjectNode object = buildObjectNode();
+            if (!text.isBlank()) {
+                object.set(valuePrefix, convertText());
+                lastChildName = null;
+            }
+
+            for (int index = 0; index < attributes.getLength(); index++) {
+                ValueNode childNode = convert(attributes.getValue(index));
+                addChild(attributeName(index), childNode);
+            }
+            node = object;
+        } else {
+            node = text.isBlank() ? factory.nullNode() : convertText();
+        }
+        return node;
+    }
+
+    /**
+     * Builds the object of the element read so far, with its attributes and text, into a copy; the holder is
+     * left as it is and the listener isn't told.
+     */
+    public ObjectNode copyNode() {
+        ObjectNode copy = copyChildren();
+        if (isRoot) return copy;
+
+        if (!text.isBlank()) copy.set(valuePrefix, textNode());
+        for (int index = 0; index < attributes.getLength(); index++) {
+            ValueNode value = SaxToJsonValueConverter.convert(
+                    attributes.getValue(index), isConvertToJsonPrimitives, isUseBigDecimalForFloats);
+            String childName = attributeName(index);
+
+            JsonNode sameNode = copy.get(childName);
+            if (sameNode == null) copy.set(childName, value);
+            else if (sameNode.isArray()) ((ArrayNode) sameNode).add(value);
+            else copy.set(childName, factory.arrayNode().add(sameNode).add(value));
+        }
+        return copy;
+    }
+
+    private String attributeName(int index) {
+        return isUsePrefixForAttributes ? attributes.getQName(index, attrPrefix) : attributes.getQName(index);
+    }
+
+    private ValueNode convert(String value) {
+        ValueNode node = SaxToJsonValueConverter.convert(value, isConvertToJsonPrimitives, isUseBigDecimalForFloats);
+        if (conversionListener != null) conversionListener.onValue(node);
+        return node;
+    }
+
+    private ValueNode convertText() {
+        ValueNode node = textNode();
+        if (conversionListener != null) conversionListener.onValue(node);
+        return node;
+    }
+
+    /**
+     * Reads numbers and booleans from the arena; the string of the text is the one {@link #getValue()} returns.
+     */
+    private ValueNode textNode() {
+        ValueNode node = isConvertToJsonPrimitives
+                ? SaxToJsonValueConverter.toPrimitive(
+                        text.getBuffer(), text.getStart(), text.trimmedLength(), isUseBigDecimalForFloats)
+                : null;
+        return node == null ? factory.textNode(text.getValue()) : node;
+    }
+
+    private ObjectNode buildObjectNode() {
+        if (children == null) children = factory.objectNode();
+        return children;
+    }
+}
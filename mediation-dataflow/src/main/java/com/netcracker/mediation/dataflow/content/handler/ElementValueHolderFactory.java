@@ -0,0 +1,133 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import org.xml.sax.Attributes;
+
+public class ElementValueHolderFactory {
+
+    private static final String DEFAULT_VALUE_PREFIX = "value";
+    private static final String DEFAULT_ATTRIBUTE_PREFIX = "@";
+
+    private boolean isConvertToJsonPrimitives;
+    private ShapeRegistry shapeRegistry;
+    private ConversionListener conversionListener;
+    private Projection projection;
+    private ConversionLimits limits;
+    private boolean isUseBigDecimalForFloats;
+    private String valuePrefix = DEFAULT_VALUE_PREFIX;
+    private boolean isUsePrefixForAttributes;
+    private String attrPrefix = DEFAULT_ATTRIBUTE_PREFIX;
+
+
+    public ElementValueHolder newInstance(String name, Attributes attributes) {
+        return newInstance(name, new ElementAttributes().copyOf(attributes));
+    }
+
+    public ElementValueHolder newInstance(String name, ElementAttributes attributes) {
+        return new ElementValueHolder(name, attributes, this);
+    }
+
+    /**
+     * @param arena shared by the holders of one conversion
+     */
+    public ElementValueHolder newInstance(String name, ElementAttributes attributes, TextArena arena) {
+        return new ElementValueHolder(name, attributes, this, arena);
+    }
+
+    public ElementValueHolder newRootInstance() {
+        return new ElementValueHolder(this);
+    }
+
+    public boolean isConvertToJsonPrimitives() {
+        return isConvertToJsonPrimitives;
+    }
+
+    public ElementValueHolderFactory setConvertToJsonPrimitives(boolean convertToJsonPrimitives) {
+        isConvertToJsonPrimitives = convertToJsonPrimitives;
+        return this;
+    }
+
+    public boolean isUseBigDecimalForFloats() {
+        return isUseBigDecimalForFloats;
+    }
+
+    public ElementValueHolderFactory setUseBigDecimalForFloats(boolean useBigDecimalForFloats) {
+        isUseBigDecimalForFloats = useBigDecimalForFloats;
+        return this;
+    }
+
+    public String getValuePrefix() {
+        return valuePrefix;
+    }
+
+    public ElementValueHolderFactory setValuePrefix(String valuePrefix) {
+        this.valuePrefix = valuePrefix;
+        return this;
+    }
+
+    public boolean isUsePrefixForAttributes() {
+        return isUsePrefixForAttributes;
+    }
+
+    public ElementValueHolderFactory setUsePrefixForAttributes(boolean usePrefixForAttributes) {
+        isUsePrefixForAttributes = usePrefixForAttributes;
+        return this;
+    }
+
+    public String getAttrPrefix() {
+        return attrPrefix;
+
+    }
+
+    public ElementValueHolderFactory setAttrPrefix(String attrPrefix) {
+        this.attrPrefix = attrPrefix;
+        return this;
+    }
+
+    public ShapeRegistry getShapeRegistry() {
+        return shapeRegistry;
+    }
+
+    /**
+     * @param shapeRegistry array paths to use and learn; {@code null} makes arrays only of repeated elements
+     */
+    public ElementValueHolderFactory setShapeRegistry(ShapeRegistry shapeRegistry) {
+        this.shapeRegistry = shapeRegistry;
+        return this;
+    }
+
+    public ConversionListener getConversionListener() {
+        return conversionListener;
+    }
+
+    /**
+     * @param conversionListener gets the counts and timings of the conversions; {@code null} turns them off
+     */
+    public ElementValueHolderFactory setConversionListener(ConversionListener conversionListener) {
+        this.conversionListener = conversionListener;
+        return this;
+    }
+
+    public Projection getProjection() {
+        return projection;
+    }
+
+    /**
+     * @param projection elements to keep or drop; {@code null} keeps every element
+     */
+    public ElementValueHolderFactory setProjection(Projection projection) {
+        this.projection = projection;
+        return this;
+    }
+
+    public ConversionLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * @param limits bounds of every conversion; {@code null} means no bounds
+     */
+    public ElementValueHolderFactory setLimits(ConversionLimits limits) {
+        this.limits = limits;
+        return this;
+    }
+}
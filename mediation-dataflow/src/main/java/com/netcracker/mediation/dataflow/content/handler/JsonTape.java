@@ -0,0 +1,437 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.ValueNode;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converted document kept as a tape instead of a tree: an int array records the elements in document order with
+ * their attributes and the place of their text, and one char array holds the text and attribute values. Objects,
+ * arrays and values are worked out only when they are read, with the same rules {@link ElementValueHolder} builds
+ * the tree with, so a consumer that reads a few fields or only forwards the document never builds the tree.
+ * A tape is read-only and can be shared between threads.
+ * <p>
+ * Every element is a header of {@link #HEADER_SIZE} ints followed by its attributes and then its children: the
+ * flags, the name, the index after the last child, the number of attributes and the offset and length of the
+ * trimmed text. An attribute is its key, the offset and the length of its value. The document itself is the
+ * header at index 0.
+ */
+public class JsonTape {
+
+    static final int FLAGS = 0;
+    static final int NAME = 1;
+    static final int END = 2;
+    static final int ATTRIBUTES = 3;
+    static final int TEXT = 4;
+    static final int TEXT_LENGTH = 5;
+    static final int HEADER_SIZE = 6;
+    static final int ATTRIBUTE_SIZE = 3;
+
+    /**
+     * Flag of the elements that are always arrays in the {@link ShapeRegistry}.
+     */
+    static final int ARRAY = 1;
+
+    private static final int ELEMENT_REF = 0;
+    private static final int ATTRIBUTE_REF = 1;
+    private static final int TEXT_REF = 2;
+
+    private static final int MAX_PLAIN_FIELDS = 32;
+
+    private static final JsonNodeFactory NODE_FACTORY = JsonNodeFactory.instance;
+
+    private final int[] tape;
+    private final char[] chars;
+    private final String[] names;
+    private final String valuePrefix;
+    private final int valuePrefixId;
+    private final boolean isConvertToJsonPrimitives;
+    private final boolean isUseBigDecimalForFloats;
+
+    /**
+     * Takes the arrays over without copying them.
+     *
+     * @param names element names and attribute keys by the ids on the tape
+     */
+    JsonTape(int[] tape, char[] chars, String[] names, ElementValueHolderFactory elementValueFactory) {
+        this.tape = tape;
+        this.chars = chars;
+        this.names = names;
+        this.valuePrefix = elementValueFactory.getValuePrefix();
+        this.valuePrefixId = Arrays.asList(names).indexOf(valuePrefix);
+        this.isConvertToJsonPrimitives = elementValueFactory.isConvertToJsonPrimitives();
+        this.isUseBigDecimalForFloats = elementValueFactory.isUseBigDecimalForFloats();
+    }
+
+    /**
+     * @return the document, an object with the root element
+     */
+    public Node root() {
+        return new Node(ELEMENT_REF, null, 0);
+    }
+
+    public JsonNode toJsonNode() {
+        return toJsonNode(ELEMENT_REF);
+    }
+
+    public void serialize(JsonGenerator generator) throws IOException {
+        serialize(ELEMENT_REF, generator);
+    }
+
+    /**
+     * @return the document as JSON
+     */
+    @Override
+    public String toString() {
+        return root().toString();
+    }
+
+    private boolean isObject(int element) {
+        return element == 0 || tape[element + ATTRIBUTES] > 0 || firstChild(element) < tape[element + END];
+    }
+
+    private int firstChild(int element) {
+        return element + HEADER_SIZE + tape[element + ATTRIBUTES] * ATTRIBUTE_SIZE;
+    }
+
+    /**
+     * Tells whether the keys of an object element are all different and none is always an array, so its fields
+     * are its children, its text and its attributes in order and are written without grouping them.
+     */
+    private boolean isPlain(int element) {
+        int attributes = tape[element + ATTRIBUTES];
+        int count = attributes + (tape[element + TEXT_LENGTH] > 0 ? 1 : 0);
+        int end = tape[element + END];
+        for (int child = firstChild(element); child < end; child = tape[child + END]) {
+            if ((tape[child + FLAGS] & ARRAY) != 0 || ++count > MAX_PLAIN_FIELDS) return false;
+        }
+
+        int[] keys = new int[count];
+        int size = 0;
+        for (int child = firstChild(element); child < end; child = tape[child + END]) {
+            if (!addKey(keys, size++, tape[child + NAME])) return false;
+        }
+        if (tape[element + TEXT_LENGTH] > 0 && !addKey(keys, size++, valuePrefixId)) return false;
+        for (int index = 0; index < attributes; index++) {
+            if (!addKey(keys, size++, tape[element + HEADER_SIZE + index * ATTRIBUTE_SIZE])) return false;
+        }
+        return true;
+    }
+
+    private static boolean addKey(int[] keys, int size, int key) {
+        for (int index = 0; index < size; index++) {
+            if (keys[index] == key) return false;
+        }
+        keys[size] = key;
+        return true;
+    }
+
+    /**
+     * Groups the children, the text and the attributes of an object element by key, in the order
+     * {@link ElementValueHolder#buildNode()} adds them.
+     */
+    private Map<String, Field> fields(int element) {
+        Map<String, Field> fields = new LinkedHashMap<>();
+        int end = tape[element + END];
+        for (int child = firstChild(element); child < end; child = tape[child + END]) {
+            Field field = field(fields, names[tape[child + NAME]]);
+            field.add(ref(child, ELEMENT_REF));
+            if ((tape[child + FLAGS] & ARRAY) != 0) field.isArray = true;
+        }
+        if (element == 0) return fields;
+
+        if (tape[element + TEXT_LENGTH] > 0) field(fields, valuePrefix).set(ref(element, TEXT_REF));
+        for (int index = 0; index < tape[element + ATTRIBUTES]; index++) {
+            int attribute = element + HEADER_SIZE + index * ATTRIBUTE_SIZE;
+            field(fields, names[tape[attribute]]).add(ref(attribute, ATTRIBUTE_REF));
+        }
+        return fields;
+    }
+
+    /**
+     * @return the tape index with the kind of value it stands for in the two low bits
+     */
+    private static int ref(int index, int kind) {
+        return index << 2 | kind;
+    }
+
+    private static Field field(Map<String, Field> fields, String name) {
+        Field field = fields.get(name);
+        if (field == null) {
+            field = new Field();
+            fields.put(name, field);
+        }
+        return field;
+    }
+
+    private JsonNode toJsonNode(int ref) {
+        if ((ref & 3) != ELEMENT_REF) return value(ref);
+
+        int element = ref >>> 2;
+        if (isObject(element)) {
+            ObjectNode node = NODE_FACTORY.objectNode();
+            if (!isPlain(element)) {
+                for (Map.Entry<String, Field> field : fields(element).entrySet()) {
+                    node.set(field.getKey(), toJsonNode(field.getValue()));
+                }
+                return node;
+            }
+
+            int end = tape[element + END];
+            for (int child = firstChild(element); child < end; child = tape[child + END]) {
+                node.set(names[tape[child + NAME]], toJsonNode(ref(child, ELEMENT_REF)));
+            }
+            if (tape[element + TEXT_LENGTH] > 0) node.set(valuePrefix, value(ref(element, TEXT_REF)));
+            for (int index = 0; index < tape[element + ATTRIBUTES]; index++) {
+                int attribute = element + HEADER_SIZE + index * ATTRIBUTE_SIZE;
+                node.set(names[tape[attribute]], value(ref(attribute, ATTRIBUTE_REF)));
+            }
+            return node;
+        }
+        return tape[element + TEXT_LENGTH] == 0 ? NODE_FACTORY.nullNode() : value(ref);
+    }
+
+    private JsonNode toJsonNode(Field field) {
+        if (!field.isArray()) return toJsonNode(field.refs[0]);
+
+        ArrayNode node = NODE_FACTORY.arrayNode(field.size);
+        for (int index = 0; index < field.size; index++) node.add(toJsonNode(field.refs[index]));
+        return node;
+    }
+
+    private void serialize(int ref, JsonGenerator generator) throws IOException {
+        if ((ref & 3) == ELEMENT_REF) {
+            int element = ref >>> 2;
+            if (isObject(element)) {
+                generator.writeStartObject();
+                if (isPlain(element)) serializePlain(element, generator);
+                else serializeFields(element, generator);
+                generator.writeEndObject();
+                return;
+            }
+            if (tape[element + TEXT_LENGTH] == 0) {
+                generator.writeNull();
+                return;
+            }
+        }
+
+        if (isConvertToJsonPrimitives) write(value(ref), generator);
+        else generator.writeString(chars, offset(ref), length(ref));
+    }
+
+    private void serializePlain(int element, JsonGenerator generator) throws IOException {
+        int end = tape[element + END];
+        for (int child = firstChild(element); child < end; child = tape[child + END]) {
+            generator.writeFieldName(names[tape[child + NAME]]);
+            serialize(ref(child, ELEMENT_REF), generator);
+        }
+        if (tape[element + TEXT_LENGTH] > 0) {
+            generator.writeFieldName(valuePrefix);
+            serialize(ref(element, TEXT_REF), generator);
+        }
+        for (int index = 0; index < tape[element + ATTRIBUTES]; index++) {
+            int attribute = element + HEADER_SIZE + index * ATTRIBUTE_SIZE;
+            generator.writeFieldName(names[tape[attribute]]);
+            serialize(ref(attribute, ATTRIBUTE_REF), generator);
+        }
+    }
+
+    private void serializeFields(int element, JsonGenerator generator) throws IOException {
+        for (Map.Entry<String, Field> field : fields(element).entrySet()) {
+            generator.writeFieldName(field.getKey());
+            serialize(field.getValue(), generator);
+        }
+    }
+
+    private void serialize(Field field, JsonGenerator generator) throws IOException {
+        if (!field.isArray()) {
+            serialize(field.refs[0], generator);
+            return;
+        }
+
+        generator.writeStartArray();
+        for (int index = 0; index < field.size; index++) serialize(field.refs[index], generator);
+        generator.writeEndArray();
+    }
+
+    private static void write(ValueNode value, JsonGenerator generator) throws IOException {
+        if (value.isTextual()) {
+            generator.writeString(value.textValue());
+        } else if (value.isBoolean()) {
+            generator.writeBoolean(value.booleanValue());
+        } else if (value.isInt()) {
+            generator.writeNumber(value.intValue());
+        } else if (value.isLong()) {
+            generator.writeNumber(value.longValue());
+        } else if (value.isBigInteger()) {
+            generator.writeNumber(value.bigIntegerValue());
+        } else if (value.isDouble()) {
+            generator.writeNumber(value.doubleValue());
+        } else {
+            generator.writeNumber(value.decimalValue());
+        }
+    }
+
+    private ValueNode value(int ref) {
+        return SaxToJsonValueConverter.convert(
+                chars, offset(ref), length(ref), isConvertToJsonPrimitives, isUseBigDecimalForFloats);
+    }
+
+    private String text(int ref) {
+        return new String(chars, offset(ref), length(ref));
+    }
+
+    private int offset(int ref) {
+        int index = ref >>> 2;
+        return (ref & 3) == ATTRIBUTE_REF ? tape[index + 1] : tape[index + TEXT];
+    }
+
+    private int length(int ref) {
+        int index = ref >>> 2;
+        return (ref & 3) == ATTRIBUTE_REF ? tape[index + 2] : tape[index + TEXT_LENGTH];
+    }
+
+    /**
+     * Values with one key in an object: the elements with the same name, the text or the attribute.
+     */
+    private static final class Field {
+
+        private int[] refs = new int[1];
+        private int size;
+        private boolean isArray;
+
+        void add(int ref) {
+            if (size == refs.length) refs = Arrays.copyOf(refs, size * 2);
+            refs[size++] = ref;
+        }
+
+        /**
+         * Replaces the values, the way {@code ObjectNode.set} replaces the value of a key.
+         */
+        void set(int ref) {
+            size = 0;
+            isArray = false;
+            add(ref);
+        }
+
+        boolean isArray() {
+            return isArray || size > 1;
+        }
+    }
+
+    /**
+     * One value of the document, read from the tape on each call. Navigating creates a node per step and the
+     * fields of an object are grouped each time it's read, so hold on to the nodes that are read more than once.
+     */
+    public final class Node {
+
+        private final int ref;
+        private final int[] items;
+        private final int size;
+
+        private Node(int ref, int[] items, int size) {
+            this.ref = ref;
+            this.items = items;
+            this.size = size;
+        }
+
+        public boolean isObject() {
+            return items == null && (ref & 3) == ELEMENT_REF && JsonTape.this.isObject(ref >>> 2);
+        }
+
+        public boolean isArray() {
+            return items != null;
+        }
+
+        public boolean isNull() {
+            return items == null && (ref & 3) == ELEMENT_REF && !isObject() && tape[(ref >>> 2) + TEXT_LENGTH] == 0;
+        }
+
+        public boolean isValue() {
+            return !isArray() && !isObject() && !isNull();
+        }
+
+        /**
+         * @return number of fields of an object or items of an array, {@code 0} for other values
+         */
+        public int size() {
+            if (isArray()) return size;
+            return isObject() ? fields(ref >>> 2).size() : 0;
+        }
+
+        /**
+         * @return the value of the field, {@code null} when there is no such field or this isn't an object
+         */
+        public Node get(String field) {
+            if (!isObject()) return null;
+
+            Field value = fields(ref >>> 2).get(field);
+            if (value == null) return null;
+            return value.isArray() ? new Node(ELEMENT_REF, value.refs, value.size) : new Node(value.refs[0], null, 0);
+        }
+
+        /**
+         * @return the item, {@code null} when there is no such item or this isn't an array
+         */
+        public Node get(int index) {
+            return isArray() && index >= 0 && index < size ? new Node(items[index], null, 0) : null;
+        }
+
+        public List<String> fieldNames() {
+            return isObject() ? new ArrayList<>(fields(ref >>> 2).keySet()) : Collections.<String>emptyList();
+        }
+
+        /**
+         * @return the text of a value as it's in the document, {@code null} for other nodes
+         */
+        public String textValue() {
+            return isValue() ? text(ref) : null;
+        }
+
+        public JsonNode toJsonNode() {
+            if (!isArray()) return JsonTape.this.toJsonNode(ref);
+
+            ArrayNode node = NODE_FACTORY.arrayNode(size);
+            for (int index = 0; index < size; index++) node.add(JsonTape.this.toJsonNode(items[index]));
+            return node;
+        }
+
+        public void serialize(JsonGenerator generator) throws IOException {
+            if (!isArray()) {
+                JsonTape.this.serialize(ref, generator);
+                return;
+            }
+
+            generator.writeStartArray();
+            for (int index = 0; index < size; index++) JsonTape.this.serialize(items[index], generator);
+            generator.writeEndArray();
+        }
+
+        /**
+         * @return the value as JSON
+         */
+        @Override
+        public String toString() {
+            StringWriter writer = new StringWriter();
+            try (JsonGenerator generator = OutputFormat.JSON.getFactory().createGenerator(writer)) {
+                serialize(generator);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return writer.toString();
+        }
+    }
+}
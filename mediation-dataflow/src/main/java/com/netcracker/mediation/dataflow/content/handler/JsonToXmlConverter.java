@@ -0,0 +1,255 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserSequence;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts JSON back to XML, reading a {@link JsonParser} token by token and writing to an {@link XMLStreamWriter}.
+ * The JSON of {@link SaxJsonContentHandler} with the same {@link ElementValueHolderFactory} settings comes back as
+ * XML that converts to the same tree: the field named by the value prefix is the text, an array is the element
+ * repeated, {@code null} is an empty element and, with {@code isUsePrefixForAttributes}, the fields with the
+ * attribute prefix are attributes. Without that prefix attributes can't be told apart and come back as elements.
+ * <p>
+ * The handler trims text, so a string written as text comes back trimmed, and as {@code null} when it is only
+ * whitespace. Text of the tree is already trimmed; the one value of the tree that doesn't come back is an attribute
+ * with whitespace around it when attributes have no prefix, as it is written as an element.
+ * <p>
+ * Attributes are written with the start tag, but the tree puts them after the children. So the content of an
+ * object is buffered until its attributes show up, at most {@code bufferLimit} tokens per open object; after that
+ * the start tag is written, and an attribute that comes later fails the conversion. Memory depends on the depth
+ * of the document and the limit, not on its size.
+ */
+public class JsonToXmlConverter {
+
+    private static final int DEFAULT_BUFFER_LIMIT = 64 * 1024;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory().disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    private final ElementValueHolderFactory elementValueFactory;
+    private int bufferLimit = DEFAULT_BUFFER_LIMIT;
+
+    public JsonToXmlConverter() {
+        this(new ElementValueHolderFactory());
+    }
+
+    public JsonToXmlConverter(ElementValueHolderFactory elementValueFactory) {
+        this.elementValueFactory = elementValueFactory;
+    }
+
+    /**
+     * Reads UTF-8 JSON and writes UTF-8 XML. Neither stream is closed.
+     */
+    public void convert(InputStream in, OutputStream out) throws IOException, XMLStreamException {
+        XMLStreamWriter writer;
+        synchronized (OUTPUT_FACTORY) {
+            writer = OUTPUT_FACTORY.createXMLStreamWriter(out, "UTF-8");
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            convert(parser, writer);
+        } finally {
+            writer.close();
+        }
+    }
+
+    public void convert(Reader in, Writer out) throws IOException, XMLStreamException {
+        XMLStreamWriter writer;
+        synchronized (OUTPUT_FACTORY) {
+            writer = OUTPUT_FACTORY.createXMLStreamWriter(out);
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            convert(parser, writer);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Converts the JSON object the parser stands on, or the next one, to a document with one root element.
+     * The writer is flushed but not closed.
+     */
+    public void convert(JsonParser parser, XMLStreamWriter writer) throws IOException, XMLStreamException {
+        if (parser.getCurrentToken() == null) parser.nextToken();
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            throw new XMLStreamException("The document isn't a JSON object: " + parser.getCurrentToken());
+        }
+
+        writer.writeStartDocument();
+        int roots = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            roots += writeElement(name, parser, writer);
+        }
+        if (roots != 1) throw new XMLStreamException("The document has " + roots + " root elements");
+        writer.writeEndDocument();
+        writer.flush();
+    }
+
+    public ElementValueHolderFactory getElementValueFactory() {
+        return elementValueFactory;
+    }
+
+    public int getBufferLimit() {
+        return bufferLimit;
+    }
+
+    /**
+     * @param bufferLimit tokens of an object kept while waiting for its attributes
+     */
+    public JsonToXmlConverter setBufferLimit(int bufferLimit) {
+        if (bufferLimit < 0) throw new IllegalArgumentException("Wrong buffer limit: " + bufferLimit);
+        this.bufferLimit = bufferLimit;
+        return this;
+    }
+
+    /**
+     * @return number of elements written, more than one for an array
+     */
+    private int writeElement(String name, JsonParser parser, XMLStreamWriter writer)
+            throws IOException, XMLStreamException {
+        switch (parser.getCurrentToken()) {
+            case START_ARRAY:
+                int count = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) count += writeElement(name, parser, writer);
+                return count;
+            case START_OBJECT:
+                if (elementValueFactory.isUsePrefixForAttributes()) {
+                    writeObjectWithAttributes(name, parser, writer);
+                } else {
+                    writer.writeStartElement(name);
+                    writeContent(name, parser, writer);
+                    writer.writeEndElement();
+                }
+                return 1;
+            case VALUE_NULL:
+                writer.writeEmptyElement(name);
+                return 1;
+            default:
+                writer.writeStartElement(name);
+                writer.writeCharacters(parser.getText());
+                writer.writeEndElement();
+                return 1;
+        }
+    }
+
+    /**
+     * Buffers the children and the text of the object until its end or the buffer limit, taking the attributes
+     * out on the way, then writes the start tag and the content from the buffer and the rest of the parser.
+     */
+    private void writeObjectWithAttributes(String name, JsonParser parser, XMLStreamWriter writer)
+            throws IOException, XMLStreamException {
+        List<String> attributes = null;
+        TokenBuffer buffer = new TokenBuffer(null, false);
+        buffer.writeStartObject();
+        int tokens = 0;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            if (isAttribute(field)) {
+                parser.nextToken();
+                if (attributes == null) attributes = new ArrayList<>();
+                attributes.add(field.substring(elementValueFactory.getAttrPrefix().length()));
+                attributes.add(attributeValue(name, field, parser));
+                continue;
+            }
+
+            buffer.copyCurrentEvent(parser);
+            int depth = 0;
+            do {
+                JsonToken token = parser.nextToken();
+                copy(parser, buffer);
+                if (token.isStructStart()) depth++;
+                else if (token.isStructEnd()) depth--;
+
+                if (++tokens > bufferLimit) {
+                    writeStartElement(name, attributes, writer);
+                    writeContent(name, JsonParserSequence.createFlattened(false, content(buffer), parser), writer);
+                    writer.writeEndElement();
+                    return;
+                }
+            } while (depth > 0);
+        }
+
+        buffer.writeEndObject();
+        writeStartElement(name, attributes, writer);
+        writeContent(name, content(buffer), writer);
+        writer.writeEndElement();
+    }
+
+    /**
+     * Copies the token; a float is kept as its text, the buffer would otherwise make it a double and round it.
+     */
+    private static void copy(JsonParser parser, TokenBuffer buffer) throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_NUMBER_FLOAT) buffer.writeNumber(parser.getText());
+        else buffer.copyCurrentEvent(parser);
+    }
+
+    /**
+     * @return parser of the buffered fields, past the start of the object
+     */
+    private static JsonParser content(TokenBuffer buffer) throws IOException {
+        JsonParser content = buffer.asParser();
+        content.nextToken();
+        return content;
+    }
+
+    private void writeStartElement(String name, List<String> attributes, XMLStreamWriter writer)
+            throws XMLStreamException {
+        writer.writeStartElement(name);
+        if (attributes == null) return;
+
+        for (int index = 0; index < attributes.size(); index += 2) {
+            writer.writeAttribute(attributes.get(index), attributes.get(index + 1));
+        }
+    }
+
+    /**
+     * Writes the fields up to the end of the object; the parser stands before the first one.
+     */
+    private void writeContent(String name, JsonParser parser, XMLStreamWriter writer)
+            throws IOException, XMLStreamException {
+        String valuePrefix = elementValueFactory.getValuePrefix();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+
+            if (field.equals(valuePrefix) && token.isScalarValue()) {
+                if (token != JsonToken.VALUE_NULL) writer.writeCharacters(parser.getText());
+            } else if (elementValueFactory.isUsePrefixForAttributes() && isAttribute(field)) {
+                throw new XMLStreamException("Attribute '" + field + "' of '" + name + "' comes after more than "
+                        + bufferLimit + " tokens of content; increase the buffer limit");
+            } else {
+                writeElement(field, parser, writer);
+            }
+        }
+    }
+
+    private boolean isAttribute(String field) {
+        String attrPrefix = elementValueFactory.getAttrPrefix();
+        return field.startsWith(attrPrefix) && field.length() > attrPrefix.length()
+                && !field.equals(elementValueFactory.getValuePrefix());
+    }
+
+    private static String attributeValue(String name, String field, JsonParser parser)
+            throws IOException, XMLStreamException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_NULL) return "";
+        if (token.isScalarValue()) return parser.getText();
+        throw new XMLStreamException("Attribute '" + field + "' of '" + name + "' isn't a value: " + token);
+    }
+}
@@ -0,0 +1,154 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.aalto.AsyncByteBufferFeeder;
+import com.fasterxml.aalto.AsyncXMLInputFactory;
+import com.fasterxml.aalto.AsyncXMLStreamReader;
+import com.fasterxml.aalto.stax.InputFactoryImpl;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Parses a file through read-only mapped windows and passes the events to a SAX {@link ContentHandler} the way a
+ * parser that isn't namespace aware reports them. The non-blocking scanner of aalto-xml reads every window in
+ * place, so the document is never copied into the heap and files over 2 GB need no special handling. The scanner
+ * only reads UTF-8 and US-ASCII and doesn't take a DOCTYPE with an internal subset; {@link #canParse} tells such
+ * files apart from their prolog.
+ */
+class MappedXmlParser {
+
+    static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private static final int PROLOG_SIZE = 8 * 1024;
+    private static final byte[] DOCTYPE = "<!DOCTYPE".getBytes(StandardCharsets.US_ASCII);
+
+    private static final AsyncXMLInputFactory INPUT_FACTORY = new InputFactoryImpl();
+
+    private final int windowSize;
+
+    MappedXmlParser(int windowSize) {
+        if (windowSize < 1) throw new IllegalArgumentException("Wrong window size: " + windowSize);
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Reads the prolog of the file: its encoding has to be UTF-8 or US-ASCII, and a DOCTYPE can't have an internal
+     * subset. A prolog longer than {@value #PROLOG_SIZE} bytes isn't read to the end and makes it {@code false}.
+     */
+    static boolean canParse(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(PROLOG_SIZE);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // the prolog is read up to its size
+            }
+        }
+        byte[] prolog = buffer.array();
+        int length = buffer.position();
+
+        String encoding = XmlRecordScanner.encoding(prolog, 0, length);
+        if (encoding == null || !(encoding.equalsIgnoreCase("UTF-8") || encoding.equalsIgnoreCase("US-ASCII"))) {
+            return false;
+        }
+
+        for (int index = 0; index < length - 1; index++) {
+            if (prolog[index] != '<') continue;
+
+            byte next = prolog[index + 1];
+            if (next != '?' && next != '!') return true;
+            if (startsWith(prolog, index, length, DOCTYPE)) return !hasInternalSubset(prolog, index, length);
+        }
+        return false;
+    }
+
+    void parse(Path path, ContentHandler handler) throws SAXException, IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            AsyncXMLStreamReader<AsyncByteBufferFeeder> reader = INPUT_FACTORY.createAsyncForByteBuffer();
+            try {
+                parse(channel, reader, handler);
+            } catch (XMLStreamException e) {
+                throw new SAXException(path + ": " + e.getMessage(), e);
+            } finally {
+                closeQuietly(reader);
+            }
+        }
+    }
+
+    private void parse(FileChannel channel, AsyncXMLStreamReader<AsyncByteBufferFeeder> reader, ContentHandler handler)
+            throws SAXException, IOException, XMLStreamException {
+        SymbolTable symbols = new SymbolTable();
+        ElementAttributes attributes = new ElementAttributes(symbols);
+        long size = channel.size();
+        long position = 0;
+        boolean isEndOfInput = false;
+
+        handler.startDocument();
+        for (int event = reader.next(); event != XMLStreamConstants.END_DOCUMENT; event = reader.next()) {
+            switch (event) {
+                case AsyncXMLStreamReader.EVENT_INCOMPLETE:
+                    if (isEndOfInput) throw new SAXException("The document is still opened");
+                    if (position == size) {
+                        reader.getInputFeeder().endOfInput();
+                        isEndOfInput = true;
+                        break;
+                    }
+                    long length = Math.min(windowSize, size - position);
+                    reader.getInputFeeder().feedInput(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+                    position += length;
+                    break;
+                case XMLStreamConstants.START_ELEMENT:
+                    String name = symbols.lookup(reader.getPrefix(), reader.getLocalName());
+                    handler.startElement("", "", name, attributes.copyOf(reader));
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    handler.endElement("", "", symbols.lookup(reader.getPrefix(), reader.getLocalName()));
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                    handler.characters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    break;
+                default:
+            }
+        }
+        handler.endDocument();
+    }
+
+    private static boolean hasInternalSubset(byte[] prolog, int from, int to) {
+        byte quote = 0;
+        for (int index = from; index < to; index++) {
+            byte ch = prolog[index];
+            if (quote != 0) {
+                if (ch == quote) quote = 0;
+            } else if (ch == '"' || ch == '\'') {
+                quote = ch;
+            } else if (ch == '[') {
+                return true;
+            } else if (ch == '>') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWith(byte[] content, int from, int to, byte[] prefix) {
+        if (to - from < prefix.length) return false;
+        for (int index = 0; index < prefix.length; index++) {
+            if (content[from + index] != prefix[index]) return false;
+        }
+        return true;
+    }
+
+    private static void closeQuietly(AsyncXMLStreamReader<?> reader) {
+        try {
+            reader.close();
+        } catch (XMLStreamException ignored) {
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * Encodings {@link XmlToJsonConverter} writes. The binary ones hold the same tree and are read back with an
+ * {@code ObjectMapper} over the same factory. Smile refers back to names and short values written before, which
+ * pays off on the element names repeated in every record.
+ */
+public enum OutputFormat {
+
+    JSON(new JsonFactory()),
+    SMILE(new SmileFactory().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)),
+    CBOR(new CBORFactory());
+
+    private final JsonFactory factory;
+
+    OutputFormat(JsonFactory factory) {
+        this.factory = factory
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+    }
+
+    /**
+     * @return the factory writing the format; it doesn't close the target or complete the content on close
+     */
+    public JsonFactory getFactory() {
+        return factory;
+    }
+}
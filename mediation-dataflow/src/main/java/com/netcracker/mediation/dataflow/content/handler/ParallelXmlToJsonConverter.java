@@ -0,0 +1,306 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Converts a document made of many records at one path on a {@link ForkJoinPool}. The records are found by
+ * {@link XmlRecordScanner} and converted in batches, each batch copied into a small document of its own under the
+ * ancestors of the record path, so the {@link ShapeRegistry} sees the same paths as in a sequential run. The rest
+ * of the document is converted with a placeholder in place of every record. The records are then put into the
+ * placeholders in document order, so the result is the same as {@link SaxJsonContentHandler#getTree()} gives.
+ * Documents the scanner can't split, and projections that don't keep the records whole (see
+ * {@link #isParallel()}), are converted sequentially. The {@link ConversionLimits} hold for the whole document:
+ * the batches and the rest of the document count their elements on one counter.
+ */
+public class ParallelXmlToJsonConverter {
+
+    private static final int DEFAULT_BATCH_SIZE = 64;
+    private static final SAXParserFactory PARSER_FACTORY = SAXParserFactory.newInstance();
+
+    private final String[] recordPath;
+    private final ElementValueHolderFactory elementValueFactory;
+    private final String placeholder;
+    private final String batchStart;
+    private final String batchEnd;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    public ParallelXmlToJsonConverter(String recordPath) {
+        this(recordPath, new ElementValueHolderFactory());
+    }
+
+    public ParallelXmlToJsonConverter(String recordPath, ElementValueHolderFactory elementValueFactory) {
+        this.recordPath = SaxJsonContentHandler.splitRecordPath(recordPath);
+        this.elementValueFactory = elementValueFactory;
+        String name = this.recordPath[this.recordPath.length - 1];
+        this.placeholder = "<" + name + "/>";
+
+        StringBuilder start = new StringBuilder();
+        StringBuilder end = new StringBuilder();
+        for (int index = 0; index < this.recordPath.length - 1; index++) {
+            start.append('<').append(this.recordPath[index]).append('>');
+            end.insert(0, "</" + this.recordPath[index] + ">");
+        }
+        this.batchStart = start.toString();
+        this.batchEnd = end.toString();
+    }
+
+    public JsonNode convert(byte[] content) throws SAXException, IOException {
+        return convert(content, 0, content.length);
+    }
+
+    public JsonNode convert(byte[] content, int offset, int length) throws SAXException, IOException {
+        int to = offset + length;
+        if (!isParallel()) return parse(content, offset, length, null);
+
+        String encoding = XmlRecordScanner.encoding(content, offset, to);
+        if (encoding == null) return parse(content, offset, length, null);
+
+        Charset charset = Charset.forName(encoding);
+        int[] bounds = new XmlRecordScanner(recordPath, charset).scan(content, offset, to);
+        if (bounds.length == 0) return parse(content, offset, length, null);
+
+        Records records = new Records(content, bounds, charset);
+        ForkJoinTask<?> task = pool.submit(records.newTask());
+
+        byte[] skeleton = skeleton(content, offset, to, bounds, placeholder.getBytes(charset));
+        JsonNode tree = parse(newHandler(records.elementCounter), skeleton, 0, skeleton.length, encoding);
+        join(task);
+
+        if (!fill(tree, records.nodes)) return parse(content, offset, length, null);
+        return tree;
+    }
+
+    /**
+     * Tells whether the records are converted in parallel with the {@link Projection} of the factory: without a
+     * projection, or when it keeps the records whole. When it drops them, or keeps only the records that contain
+     * some path inside them, the document is converted sequentially, since whether a record stays isn't known
+     * until it is converted.
+     */
+    public boolean isParallel() {
+        Projection projection = elementValueFactory.getProjection();
+        if (projection == null) return true;
+
+        long state = projection.start();
+        for (String step : recordPath) {
+            state = projection.next(state, step);
+            if (state == 0) return false;
+        }
+        return (state & Projection.INCLUDED) != 0;
+    }
+
+    public String getRecordPath() {
+        return "/" + String.join("/", recordPath);
+    }
+
+    public ElementValueHolderFactory getElementValueFactory() {
+        return elementValueFactory;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public ParallelXmlToJsonConverter setPool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @param batchSize number of records converted by one task
+     */
+    public ParallelXmlToJsonConverter setBatchSize(int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("Wrong batch size: " + batchSize);
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    private static byte[] skeleton(byte[] content, int from, int to, int[] bounds, byte[] placeholder) {
+        int length = to - from;
+        for (int index = 0; index < bounds.length; index += 2) {
+            length -= bounds[index + 1] - bounds[index] - placeholder.length;
+        }
+
+        byte[] skeleton = new byte[length];
+        int position = 0;
+        int previous = from;
+        for (int index = 0; index < bounds.length; index += 2) {
+            System.arraycopy(content, previous, skeleton, position, bounds[index] - previous);
+            position += bounds[index] - previous;
+            System.arraycopy(placeholder, 0, skeleton, position, placeholder.length);
+            position += placeholder.length;
+            previous = bounds[index + 1];
+        }
+        System.arraycopy(content, previous, skeleton, position, to - previous);
+        return skeleton;
+    }
+
+    private boolean fill(JsonNode tree, JsonNode[] records) {
+        List<ObjectNode> parents = new ArrayList<>();
+        parents.add((ObjectNode) tree);
+        for (int step = 0; step < recordPath.length - 1; step++) {
+            List<ObjectNode> children = new ArrayList<>();
+            for (ObjectNode parent : parents) {
+                JsonNode child = parent.get(recordPath[step]);
+                if (child instanceof ObjectNode) {
+                    children.add((ObjectNode) child);
+                } else if (child instanceof ArrayNode) {
+                    for (JsonNode item : child) {
+                        if (item instanceof ObjectNode) children.add((ObjectNode) item);
+                    }
+                }
+            }
+            parents = children;
+        }
+
+        String name = recordPath[recordPath.length - 1];
+        int next = 0;
+        for (ObjectNode parent : parents) {
+            JsonNode slot = parent.get(name);
+            if (slot == null) continue;
+
+            if (slot.isNull()) {
+                if (next == records.length) return false;
+                parent.set(name, records[next++]);
+            } else if (slot.isArray()) {
+                ArrayNode array = (ArrayNode) slot;
+                for (int index = 0; index < array.size(); index++) {
+                    if (!array.get(index).isNull()) continue;
+                    if (next == records.length) return false;
+                    array.set(index, records[next++]);
+                }
+            }
+        }
+        return next == records.length;
+    }
+
+    private JsonNode parse(byte[] content, int offset, int length, String encoding) throws SAXException, IOException {
+        return parse(new SaxJsonContentHandler(elementValueFactory), content, offset, length, encoding);
+    }
+
+    private static JsonNode parse(SaxJsonContentHandler handler, byte[] content, int offset, int length,
+                                  String encoding) throws SAXException, IOException {
+        parse(newXmlReader(handler), content, offset, length, encoding);
+        return handler.getTree();
+    }
+
+    /**
+     * @return handler of a part of the document, counting its elements on the shared counter
+     */
+    private SaxJsonContentHandler newHandler(AtomicLong elementCounter) {
+        return new SaxJsonContentHandler(elementValueFactory).setElementCounter(elementCounter);
+    }
+
+    private static void parse(XMLReader xmlReader, byte[] content, int offset, int length, String encoding)
+            throws SAXException, IOException {
+        InputSource source = new InputSource(new ByteArrayInputStream(content, offset, length));
+        if (encoding != null) source.setEncoding(encoding);
+        xmlReader.parse(source);
+    }
+
+    private static XMLReader newXmlReader(SaxJsonContentHandler handler) throws SAXException {
+        XMLReader xmlReader;
+        try {
+            synchronized (PARSER_FACTORY) {
+                xmlReader = PARSER_FACTORY.newSAXParser().getXMLReader();
+            }
+        } catch (ParserConfigurationException e) {
+            throw new SAXException(e);
+        }
+        xmlReader.setContentHandler(handler);
+        return xmlReader;
+    }
+
+    private static void join(ForkJoinTask<?> task) throws SAXException, IOException {
+        try {
+            task.join();
+        } catch (RuntimeException e) {
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof SAXException) throw (SAXException) cause;
+                if (cause instanceof IOException) throw (IOException) cause;
+            }
+            throw e;
+        }
+    }
+
+    private final class Records {
+
+        private final byte[] content;
+        private final int[] bounds;
+        private final String encoding;
+        private final byte[] start;
+        private final byte[] end;
+        private final JsonNode[] nodes;
+        private final AtomicLong elementCounter;
+
+        /**
+         * The element counter starts below zero by the elements counted twice: the placeholders of the skeleton
+         * and the ancestors every batch repeats. So it goes over the limit exactly when the document does.
+         */
+        Records(byte[] content, int[] bounds, Charset charset) {
+            this.content = content;
+            this.bounds = bounds;
+            this.encoding = charset.name();
+            this.start = batchStart.getBytes(charset);
+            this.end = batchEnd.getBytes(charset);
+            this.nodes = new JsonNode[bounds.length / 2];
+
+            int batches = (nodes.length + batchSize - 1) / batchSize;
+            this.elementCounter = elementValueFactory.getLimits() == null
+                    ? null : new AtomicLong(-nodes.length - (long) batches * (recordPath.length - 1));
+        }
+
+        ForkJoinTask<?> newTask() {
+            final List<ForkJoinTask<Void>> batches = new ArrayList<>();
+            for (int from = 0; from < nodes.length; from += batchSize) {
+                final int start = from;
+                final int end = Math.min(from + batchSize, nodes.length);
+                batches.add(ForkJoinTask.adapt(() -> {
+                    convert(start, end);
+                    return null;
+                }));
+            }
+            return ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(batches));
+        }
+
+        private void convert(int from, int to) throws SAXException, IOException {
+            int length = start.length + end.length;
+            for (int index = from; index < to; index++) length += bounds[2 * index + 1] - bounds[2 * index];
+
+            byte[] batch = new byte[length];
+            System.arraycopy(start, 0, batch, 0, start.length);
+            int position = start.length;
+            for (int index = from; index < to; index++) {
+                int record = bounds[2 * index];
+                System.arraycopy(content, record, batch, position, bounds[2 * index + 1] - record);
+                position += bounds[2 * index + 1] - record;
+            }
+            System.arraycopy(end, 0, batch, position, end.length);
+
+            final int[] next = {from};
+            SaxJsonContentHandler handler = newHandler(elementCounter)
+                    .setRecordListener(getRecordPath(), (record, envelope) -> nodes[next[0]++] = record);
+            parse(newXmlReader(handler), batch, 0, batch.length, encoding);
+        }
+    }
+}
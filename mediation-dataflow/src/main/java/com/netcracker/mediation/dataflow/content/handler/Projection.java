@@ -0,0 +1,109 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Element paths to keep or to drop, in a small XPath subset: {@code /a/b} is a path from the root, {@code *} is
+ * any one element and {@code //} any number of elements, so {@code //b} is {@code b} at any depth. Without include
+ * paths every element is kept. With them an element is kept when it matches an include path, is inside such an
+ * element or contains one; the elements containing one keep their attributes and text. An element matching an
+ * exclude path is dropped with everything inside it, even within an included element.
+ * <p>
+ * The paths are compiled into one automaton whose states fit in a {@code long}, so converters match the element
+ * stack step by step and skip dropped elements without building anything for them. A projection is read-only
+ * once passed to a converter and can be shared by any number of them.
+ */
+public class Projection {
+
+    public static final int MAX_STEPS = 63;
+
+    /**
+     * State bit of the elements kept with everything inside them.
+     */
+    static final long INCLUDED = 1L << MAX_STEPS;
+
+    private final List<String> names = new ArrayList<>();
+    private long descendantSteps;
+    private long lastSteps;
+    private long includeSteps;
+    private long includeStart;
+    private long excludeStart;
+
+    public Projection include(String path) {
+        includeStart |= add(path, true);
+        return this;
+    }
+
+    public Projection exclude(String path) {
+        excludeStart |= add(path, false);
+        return this;
+    }
+
+    /**
+     * @return the state of the document, before its root element
+     */
+    long start() {
+        return includeStart == 0 ? INCLUDED | excludeStart : includeStart | excludeStart;
+    }
+
+    /**
+     * @param state the state of the parent
+     * @return the state of the element, {@code 0} when the element is dropped
+     */
+    long next(long state, String name) {
+        boolean isIncluded = (state & INCLUDED) != 0;
+        long next = 0;
+        for (long steps = state & ~INCLUDED; steps != 0; steps &= steps - 1) {
+            int step = Long.numberOfTrailingZeros(steps);
+            long bit = 1L << step;
+            if ((descendantSteps & bit) != 0) next |= bit;
+
+            String stepName = names.get(step);
+            if (stepName != null && !stepName.equals(name)) continue;
+
+            if ((lastSteps & bit) == 0) {
+                next |= bit << 1;
+            } else if ((includeSteps & bit) == 0) {
+                return 0;
+            } else {
+                isIncluded = true;
+            }
+        }
+
+        if (isIncluded) return INCLUDED | (next & ~includeSteps);
+        return (next & includeSteps) == 0 ? 0 : next;
+    }
+
+    public boolean isEmpty() {
+        return names.isEmpty();
+    }
+
+    private long add(String path, boolean isInclude) {
+        String[] steps = path.startsWith("/") ? path.substring(1).split("/", -1) : new String[]{""};
+        List<String> pathNames = new ArrayList<>();
+        long pathDescendantSteps = 0;
+        boolean isDescendant = false;
+        for (int index = 0; index < steps.length; index++) {
+            if (!steps[index].isEmpty()) {
+                if (isDescendant) pathDescendantSteps |= 1L << pathNames.size();
+                pathNames.add("*".equals(steps[index]) ? null : steps[index]);
+                isDescendant = false;
+            } else if (isDescendant || index == steps.length - 1) {
+                throw new IllegalArgumentException("Wrong path: " + path);
+            } else {
+                isDescendant = true;
+            }
+        }
+
+        int first = names.size();
+        if (first + pathNames.size() > MAX_STEPS) throw new IllegalArgumentException("More than " + MAX_STEPS + " steps");
+
+        long pathSteps = (1L << pathNames.size()) - 1;
+        names.addAll(pathNames);
+        descendantSteps |= pathDescendantSteps << first;
+        if (isInclude) includeSteps |= pathSteps << first;
+        lastSteps |= 1L << (names.size() - 1);
+        return 1L << first;
+    }
+}
@@ -0,0 +1,13 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+public interface RecordListener {
+
+    /**
+     * @param record   the converted element found at the record path
+     * @param envelope the part of the document around the record that is converted so far,
+     *                 starting from the root and without any records
+     */
+    void onRecord(JsonNode record, JsonNode envelope);
+}
@@ -0,0 +1,347 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.commons.lang3.StringUtils;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SaxJsonContentHandler extends DefaultHandler {
+
+    private static final String[] NO_RECORD_PATH = new String[0];
+
+    private JsonNode tree;
+    private final ElementValueHolderFactory elementValueFactory;
+    private final List<ElementValueHolder> elementValueHolders = new ArrayList<>();
+    private int depth;
+    private final SymbolTable symbols = new SymbolTable();
+    private final TextArena arena = new TextArena();
+    private final List<ShapeRegistry.Node> shapes = new ArrayList<>();
+
+    private Projection projection;
+    private long[] projectionStates = new long[16];
+    private int skipped;
+
+    private ConversionLimits limits;
+    private long elements;
+    private AtomicLong elementCounter;
+
+    private ConversionListener conversionListener;
+    private long documentStart;
+    private long buildNanos;
+
+    private String[] recordPath = NO_RECORD_PATH;
+    private RecordListener recordListener;
+    private int recordPathMatched;
+    private JsonNode envelope;
+
+    public SaxJsonContentHandler() {
+        this.elementValueFactory = new ElementValueHolderFactory();
+    }
+
+    public SaxJsonContentHandler(ElementValueHolderFactory elementValueFactory) {
+        this.elementValueFactory = elementValueFactory;
+    }
+
+    @Override
+    public void startDocument() throws SAXException {
+        openDocument();
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+        if (skipElement(qName)) return;
+        openElement(qName, nextAttributes().copyOf(attributes));
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        closeElement();
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        closeDocument();
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        appendText(ch, start, length);
+    }
+
+    /**
+     * Prepares the handler for the next document. The holders are kept and reused, one per depth,
+     * so converting many small documents with one handler allocates little besides the result.
+     */
+    public SaxJsonContentHandler reset() {
+        for (ElementValueHolder holder : elementValueHolders) holder.clear();
+        depth = 0;
+        tree = null;
+        recordPathMatched = 0;
+        envelope = null;
+        skipped = 0;
+        return this;
+    }
+
+    void openDocument() {
+        depth = 0;
+        arena.clear();
+        tree = null;
+        ElementValueHolder root = nextHolder();
+        root.reset(null, root.getAttributes());
+        ShapeRegistry shapeRegistry = elementValueFactory.getShapeRegistry();
+        setShape(shapeRegistry == null ? null : shapeRegistry.root());
+        depth++;
+        recordPathMatched = 0;
+        envelope = null;
+
+        projection = elementValueFactory.getProjection();
+        if (projection != null) projectionStates[0] = projection.start();
+        skipped = 0;
+        limits = elementValueFactory.getLimits();
+        elements = 0;
+
+        conversionListener = elementValueFactory.getConversionListener();
+        if (conversionListener != null) {
+            documentStart = System.nanoTime();
+            buildNanos = 0;
+        }
+    }
+
+    /**
+     * Tells whether the element and everything inside it are dropped by the {@link Projection}; dropped
+     * elements are only counted until they close. Elements on the way to an included one are dropped when
+     * they close without children.
+     */
+    boolean skipElement(String name) {
+        if (skipped > 0) {
+            skipped++;
+            return true;
+        }
+        if (projection == null) return false;
+
+        long state = projection.next(projectionStates[depth - 1], name);
+        if (state == 0) {
+            skipped = 1;
+            return true;
+        }
+
+        if (depth == projectionStates.length) projectionStates = Arrays.copyOf(projectionStates, depth * 2);
+        projectionStates[depth] = state;
+        return false;
+    }
+
+    void openElement(String name, ElementAttributes attributes) throws ConversionLimitException {
+        name = symbols.lookup(name);
+        if (limits != null) checkElementLimits(limits, name);
+        nextHolder().reset(name, attributes);
+        ShapeRegistry.Node parentShape = shapes.get(depth - 1);
+        setShape(parentShape == null ? null : parentShape.child(name));
+        depth++;
+
+        if (recordListener != null) matchRecordPath(name);
+        if (conversionListener != null) conversionListener.onElement(depth - 1, attributes.getLength());
+    }
+
+    void appendText(char[] ch, int start, int length) throws ConversionLimitException {
+        if (skipped > 0) return;
+
+        ElementValueHolder holder = elementValueHolders.get(depth - 1);
+        if (limits != null && holder.getValueLength() + length > limits.getMaxTextLength()) {
+            throw new ConversionLimitException(ConversionLimits.Limit.TEXT_LENGTH,
+                    holder.getValueLength() + length, limits.getMaxTextLength(), path(depth - 1, null));
+        }
+        holder.appendValue(ch, start, length);
+        if (conversionListener != null) conversionListener.onText(length);
+    }
+
+    void closeElement() throws ConversionLimitException {
+        if (skipped > 0) {
+            skipped--;
+            return;
+        }
+        if (conversionListener == null) {
+            buildElement();
+            return;
+        }
+
+        long start = System.nanoTime();
+        buildElement();
+        buildNanos += System.nanoTime() - start;
+    }
+
+    private void buildElement() throws ConversionLimitException {
+        ElementValueHolder element = elementValueHolders.get(--depth);
+        if (projection != null && (projectionStates[depth] & Projection.INCLUDED) == 0 && !element.hasChildren()) {
+            element.release();
+            if (recordListener != null) isRecordEnd();
+            return;
+        }
+
+        String childName = element.getName();
+        JsonNode childNode = element.buildNode();
+        element.release();
+
+        if (recordListener != null && isRecordEnd()) {
+            recordListener.onRecord(childNode, getEnvelope());
+            return;
+        }
+
+        ShapeRegistry.Node shape = shapes.get(depth);
+        ElementValueHolder parentNode = elementValueHolders.get(depth - 1);
+        int size = shape == null
+                ? parentNode.addChild(childName, childNode)
+                : parentNode.addChild(childName, childNode, shape.isArray());
+        if (shape != null && size > 1) shape.learnArray();
+        if (limits != null && size > limits.getMaxArrayLength()) {
+            throw new ConversionLimitException(
+                    ConversionLimits.Limit.ARRAY_LENGTH, size, limits.getMaxArrayLength(), path(depth, null));
+        }
+    }
+
+    private void checkElementLimits(ConversionLimits limits, String name) throws ConversionLimitException {
+        if (depth > limits.getMaxDepth()) {
+            throw new ConversionLimitException(
+                    ConversionLimits.Limit.DEPTH, depth, limits.getMaxDepth(), path(depth - 1, name));
+        }
+        long count = elementCounter == null ? ++elements : elementCounter.incrementAndGet();
+        if (count > limits.getMaxElements()) {
+            throw new ConversionLimitException(
+                    ConversionLimits.Limit.ELEMENTS, count, limits.getMaxElements(), path(depth - 1, name));
+        }
+    }
+
+    /**
+     * @param last index of the last open element on the path
+     * @param name element being opened under it, or {@code null}
+     */
+    private String path(int last, String name) {
+        StringBuilder path = new StringBuilder();
+        for (int index = 1; index <= last; index++) path.append('/').append(elementValueHolders.get(index).getName());
+        if (name != null) path.append('/').append(name);
+        return path.toString();
+    }
+
+    void closeDocument() {
+        if (depth != 1) throw new IllegalArgumentException("The document is still opened");
+        if (conversionListener == null) {
+            tree = elementValueHolders.get(--depth).buildNode();
+            return;
+        }
+
+        long start = System.nanoTime();
+        tree = elementValueHolders.get(--depth).buildNode();
+        long end = System.nanoTime();
+        buildNanos += end - start;
+        conversionListener.onPhase(ConversionListener.Phase.BUILD, buildNanos);
+        conversionListener.onPhase(ConversionListener.Phase.PARSE, end - documentStart - buildNanos);
+    }
+
+    ElementAttributes nextAttributes() {
+        return nextHolder().getAttributes();
+    }
+
+    private void setShape(ShapeRegistry.Node shape) {
+        if (depth == shapes.size()) shapes.add(shape);
+        else shapes.set(depth, shape);
+    }
+
+    private ElementValueHolder nextHolder() {
+        if (depth == elementValueHolders.size()) {
+            elementValueHolders.add(depth == 0
+                    ? elementValueFactory.newRootInstance()
+                    : elementValueFactory.newInstance(null, new ElementAttributes(symbols), arena));
+        }
+        return elementValueHolders.get(depth);
+    }
+
+    public JsonNode getTree() {
+        return tree;
+    }
+
+    public SymbolTable getSymbolTable() {
+        return symbols;
+    }
+
+    public ElementValueHolderFactory getElementValueFactory() {
+        return elementValueFactory;
+    }
+
+    /**
+     * Counts the elements of the {@link ConversionLimits} with a counter shared by the handlers converting parts
+     * of one document, instead of counting per document.
+     */
+    SaxJsonContentHandler setElementCounter(AtomicLong elementCounter) {
+        this.elementCounter = elementCounter;
+        return this;
+    }
+
+    public String getRecordPath() {
+        return recordListener == null ? null : "/" + String.join("/", recordPath);
+    }
+
+    public RecordListener getRecordListener() {
+        return recordListener;
+    }
+
+    public SaxJsonContentHandler setRecordListener(String recordPath, RecordListener recordListener) {
+        if (recordPath == null || recordListener == null) {
+            this.recordPath = NO_RECORD_PATH;
+            this.recordListener = null;
+            return this;
+        }
+
+        this.recordPath = splitRecordPath(recordPath);
+        this.recordListener = recordListener;
+        return this;
+    }
+
+    static String[] splitRecordPath(String recordPath) {
+        String[] steps = StringUtils.removeStart(recordPath, "/").split("/", -1);
+        for (String step : steps) {
+            if (step.isEmpty()) throw new IllegalArgumentException("Wrong record path: " + recordPath);
+        }
+        return steps;
+    }
+
+    private void matchRecordPath(String name) {
+        int level = depth - 1;
+        if (recordPathMatched == level - 1 && level <= recordPath.length && recordPath[level - 1].equals(name)) {
+            recordPathMatched = level;
+        }
+    }
+
+    private boolean isRecordEnd() {
+        if (recordPathMatched == depth) {
+            recordPathMatched--;
+            if (depth == recordPath.length) return true;
+        }
+
+        if (recordPathMatched < recordPath.length) envelope = null;
+        return false;
+    }
+
+    private JsonNode getEnvelope() {
+        if (envelope != null) return envelope;
+
+        JsonNode node = null;
+        String name = null;
+        for (int index = depth - 1; index >= 0; index--) {
+            ElementValueHolder holder = elementValueHolders.get(index);
+            ObjectNode object = holder.copyNode();
+            if (node != null) object.set(name, node);
+
+            node = object;
+            name = holder.getName();
+        }
+
+        envelope = node;
+        return envelope;
+    }
+}
@@ -0,0 +1,63 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Keeps reset {@link SaxJsonContentHandler}s sharing one {@link ElementValueHolderFactory}. Either take a
+ * handler with {@link #acquire()} and give it back with {@link #release}, or use the handler of the current
+ * thread from {@link #forCurrentThread()}. Handlers are released without a record listener.
+ */
+public class SaxJsonContentHandlerPool {
+
+    private final ElementValueHolderFactory elementValueFactory;
+    private final BlockingQueue<SaxJsonContentHandler> handlers;
+    private final ThreadLocal<SaxJsonContentHandler> threadHandlers = new ThreadLocal<>();
+
+    public SaxJsonContentHandlerPool(int capacity) {
+        this(new ElementValueHolderFactory(), capacity);
+    }
+
+    /**
+     * @param capacity the most handlers kept; handlers released above it are dropped
+     */
+    public SaxJsonContentHandlerPool(ElementValueHolderFactory elementValueFactory, int capacity) {
+        this.elementValueFactory = elementValueFactory;
+        this.handlers = new ArrayBlockingQueue<>(capacity);
+    }
+
+    public SaxJsonContentHandler acquire() {
+        SaxJsonContentHandler handler = handlers.poll();
+        return handler == null ? new SaxJsonContentHandler(elementValueFactory) : handler;
+    }
+
+    /**
+     * @return {@code false} when the pool is full and the handler is dropped
+     */
+    public boolean release(SaxJsonContentHandler handler) {
+        if (handler.getElementValueFactory() != elementValueFactory) {
+            throw new IllegalArgumentException("The handler doesn't belong to the pool");
+        }
+        return handlers.offer(handler.setRecordListener(null, null).reset());
+    }
+
+    /**
+     * @return the reset handler of the current thread; it must not be used after the thread passes it on
+     */
+    public SaxJsonContentHandler forCurrentThread() {
+        SaxJsonContentHandler handler = threadHandlers.get();
+        if (handler == null) {
+            handler = new SaxJsonContentHandler(elementValueFactory);
+            threadHandlers.set(handler);
+        }
+        return handler.reset();
+    }
+
+    public ElementValueHolderFactory getElementValueFactory() {
+        return elementValueFactory;
+    }
+
+    public int getIdleCount() {
+        return handlers.size();
+    }
+}
@@ -0,0 +1,142 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Converts documents with pooled pairs of an {@link XMLReader} and a {@link SaxJsonContentHandler}, so small
+ * documents don't pay for the parser lookup and construction every time. A pair is taken for one call and
+ * reset when it comes back; the pool is safe to share between threads. Pairs that failed a document are dropped.
+ */
+public class SaxJsonConverter {
+
+    private final ElementValueHolderFactory elementValueFactory;
+    private final SAXParserFactory parserFactory;
+    private final BlockingQueue<Parser> parsers;
+
+    public SaxJsonConverter(int capacity) {
+        this(new ElementValueHolderFactory(), capacity);
+    }
+
+    public SaxJsonConverter(ElementValueHolderFactory elementValueFactory, int capacity) {
+        this(elementValueFactory, SAXParserFactory.newInstance(), capacity);
+    }
+
+    /**
+     * @param parserFactory configured factory of the readers
+     * @param capacity      the most idle pairs kept; pairs released above it are dropped
+     */
+    public SaxJsonConverter(ElementValueHolderFactory elementValueFactory, SAXParserFactory parserFactory, int capacity) {
+        this.elementValueFactory = elementValueFactory;
+        this.parserFactory = parserFactory;
+        this.parsers = new ArrayBlockingQueue<>(capacity);
+    }
+
+    public JsonNode convert(InputSource source) throws SAXException, IOException {
+        Parser parser = acquire();
+        JsonNode tree = parser.parse(source);
+        release(parser);
+        return tree;
+    }
+
+    /**
+     * Records the document as a {@link JsonTape}, for consumers that read little of it.
+     */
+    public JsonTape convertToTape(InputSource source) throws SAXException, IOException {
+        Parser parser = acquire();
+        JsonTape tape = parser.parseToTape(source);
+        release(parser);
+        return tape;
+    }
+
+    /**
+     * Converts the documents in order with one pair.
+     */
+    public List<JsonNode> convertAll(Iterable<InputSource> sources) throws SAXException, IOException {
+        List<JsonNode> trees = new ArrayList<>();
+        Parser parser = acquire();
+        for (InputSource source : sources) trees.add(parser.parse(source));
+        release(parser);
+        return trees;
+    }
+
+    /**
+     * Reads the messages of the stream, one root element after another.
+     */
+    public XmlMessageReader readMessages(InputStream in) {
+        return new XmlMessageReader(this, in, null);
+    }
+
+    /**
+     * Reads the messages of the stream, separated by the delimiter.
+     */
+    public XmlMessageReader readMessages(InputStream in, byte[] delimiter) {
+        if (delimiter == null) throw new IllegalArgumentException("No delimiter");
+        return new XmlMessageReader(this, in, delimiter);
+    }
+
+    public ElementValueHolderFactory getElementValueFactory() {
+        return elementValueFactory;
+    }
+
+    public int getIdleCount() {
+        return parsers.size();
+    }
+
+    Parser acquire() throws SAXException {
+        Parser parser = parsers.poll();
+        return parser == null ? new Parser(newXmlReader(), new SaxJsonContentHandler(elementValueFactory)) : parser;
+    }
+
+    boolean release(Parser parser) {
+        parser.handler.reset();
+        return parsers.offer(parser);
+    }
+
+    private XMLReader newXmlReader() throws SAXException {
+        try {
+            synchronized (parserFactory) {
+                return parserFactory.newSAXParser().getXMLReader();
+            }
+        } catch (ParserConfigurationException e) {
+            throw new SAXException(e);
+        }
+    }
+
+    static final class Parser {
+
+        private final XMLReader xmlReader;
+        private final SaxJsonContentHandler handler;
+        private SaxJsonTapeHandler tapeHandler;
+
+        Parser(XMLReader xmlReader, SaxJsonContentHandler handler) {
+            this.xmlReader = xmlReader;
+            this.handler = handler;
+        }
+
+        JsonNode parse(InputSource source) throws SAXException, IOException {
+            handler.reset();
+            xmlReader.setContentHandler(handler);
+            xmlReader.parse(source);
+            return handler.getTree();
+        }
+
+        JsonTape parseToTape(InputSource source) throws SAXException, IOException {
+            if (tapeHandler == null) tapeHandler = new SaxJsonTapeHandler(handler.getElementValueFactory());
+            xmlReader.setContentHandler(tapeHandler);
+            xmlReader.parse(source);
+            return tapeHandler.getTape();
+        }
+    }
+}
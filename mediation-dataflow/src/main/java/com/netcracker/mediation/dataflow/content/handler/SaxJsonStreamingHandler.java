@@ -0,0 +1,604 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ValueNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the JSON of {@link SaxJsonContentHandler} to a {@link JsonGenerator} as elements close.
+ * The children of an element are held by name until it closes, so a name that repeats after other siblings joins
+ * the array of its first one and attributes and text join the fields of their names, like in the tree. When the
+ * children held grow over {@code bufferLimit} tokens, the fields up to the open child are written and its array
+ * goes on as the children come. A name that shows up after its field was written, like a repeat after a first
+ * child bigger than the limit, fails the conversion, or with {@code repeatsAsSeparateFields} is written as another
+ * field of the same name. A learned {@link ShapeRegistry} makes such names arrays from the first child.
+ * The listener is told of the elements, texts and values as for the tree; the time spent writing is reported
+ * as {@link ConversionListener.Phase#SERIALIZE} and the rest of the document as the parse.
+ */
+public class SaxJsonStreamingHandler extends DefaultHandler {
+
+    private static final int DEFAULT_BUFFER_LIMIT = 64 * 1024;
+
+    private final JsonGenerator generator;
+    private final ElementValueHolderFactory elementValueFactory;
+    private int bufferLimit = DEFAULT_BUFFER_LIMIT;
+    private boolean isRepeatsAsSeparateFields;
+
+    private final List<Frame> frames = new ArrayList<>();
+    private final SymbolTable symbols = new SymbolTable();
+    private final TextArena arena = new TextArena();
+    private int depth = -1;
+    private Projection projection;
+    private int skipped;
+    private ConversionLimits limits;
+    private long elements;
+    private ConversionListener conversionListener;
+    private long documentStart;
+    private long writeNanos;
+
+    public SaxJsonStreamingHandler(JsonGenerator generator) {
+        this(generator, new ElementValueHolderFactory());
+    }
+
+    public SaxJsonStreamingHandler(JsonGenerator generator, ElementValueHolderFactory elementValueFactory) {
+        this.generator = generator;
+        this.elementValueFactory = elementValueFactory;
+    }
+
+    @Override
+    public void startDocument() throws SAXException {
+        depth = 0;
+        arena.clear();
+        Frame document = frame(depth);
+        document.open(null, null);
+        ShapeRegistry shapeRegistry = elementValueFactory.getShapeRegistry();
+        document.shape = shapeRegistry == null ? null : shapeRegistry.root();
+        document.out = generator;
+        document.outOwner = -1;
+        projection = elementValueFactory.getProjection();
+        document.projectionState = projection == null ? 0 : projection.start();
+        document.opened = true;
+        skipped = 0;
+        limits = elementValueFactory.getLimits();
+        elements = 0;
+        conversionListener = elementValueFactory.getConversionListener();
+        if (conversionListener != null) {
+            documentStart = System.nanoTime();
+            writeNanos = 0;
+        }
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+        if (skipped > 0) {
+            skipped++;
+            return;
+        }
+
+        long projectionState = 0;
+        if (projection != null) {
+            projectionState = projection.next(frames.get(depth).projectionState, qName);
+            if (projectionState == 0) {
+                skipped = 1;
+                return;
+            }
+        }
+
+        if (limits != null) checkElementLimits(limits, qName);
+
+        try {
+            Frame element = frame(++depth);
+            element.open(symbols.lookup(qName), attributes);
+            element.projectionState = projectionState;
+            ShapeRegistry.Node parentShape = frames.get(depth - 1).shape;
+            element.shape = parentShape == null ? null : parentShape.child(element.name);
+            element.opened = false;
+            if (projection == null || (projectionState & Projection.INCLUDED) != 0) open(depth);
+        } catch (IOException e) {
+            throw new SAXException(e);
+        }
+        if (conversionListener != null) conversionListener.onElement(depth, attributes.getLength());
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        if (skipped > 0) {
+            skipped--;
+            return;
+        }
+
+        try {
+            Frame element = frames.get(depth);
+            if (element.opened) {
+                if (conversionListener == null) {
+                    closeElement(depth);
+                } else {
+                    long start = System.nanoTime();
+                    closeElement(depth);
+                    writeNanos += System.nanoTime() - start;
+                }
+            }
+            element.text.release();
+            depth--;
+        } catch (IOException e) {
+            throw new SAXException(e);
+        }
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        if (depth != 0) throw new IllegalArgumentException("The document is still opened");
+        long start = conversionListener == null ? 0 : System.nanoTime();
+        try {
+            ensureStarted(0);
+            out(0).writeEndObject();
+            generator.flush();
+            depth = -1;
+        } catch (IOException e) {
+            throw new SAXException(e);
+        }
+        if (conversionListener == null) return;
+
+        long end = System.nanoTime();
+        writeNanos += end - start;
+        conversionListener.onPhase(ConversionListener.Phase.SERIALIZE, writeNanos);
+        conversionListener.onPhase(ConversionListener.Phase.PARSE, end - documentStart - writeNanos);
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        if (skipped > 0) return;
+
+        ElementText text = frames.get(depth).text;
+        if (limits != null && text.length() + length > limits.getMaxTextLength()) {
+            throw new ConversionLimitException(ConversionLimits.Limit.TEXT_LENGTH,
+                    text.length() + length, limits.getMaxTextLength(), path(depth));
+        }
+        text.append(ch, start, length);
+        if (conversionListener != null) conversionListener.onText(length);
+    }
+
+    public JsonGenerator getGenerator() {
+        return generator;
+    }
+
+    public ElementValueHolderFactory getElementValueFactory() {
+        return elementValueFactory;
+    }
+
+    public int getBufferLimit() {
+        return bufferLimit;
+    }
+
+    /**
+     * @param bufferLimit tokens of the children of an element held before the first of them are written
+     */
+    public SaxJsonStreamingHandler setBufferLimit(int bufferLimit) {
+        this.bufferLimit = bufferLimit;
+        return this;
+    }
+
+    public boolean isRepeatsAsSeparateFields() {
+        return isRepeatsAsSeparateFields;
+    }
+
+    /**
+     * @param repeatsAsSeparateFields write a name that shows up again after its field was written as another
+     *                                field of that name instead of failing; most JSON readers keep the last one
+     */
+    public SaxJsonStreamingHandler setRepeatsAsSeparateFields(boolean repeatsAsSeparateFields) {
+        this.isRepeatsAsSeparateFields = repeatsAsSeparateFields;
+        return this;
+    }
+
+    private Frame frame(int index) {
+        if (index == frames.size()) frames.add(new Frame(symbols, arena));
+        return frames.get(index);
+    }
+
+    /**
+     * Opens the element with the elements on the way to it that were held back by the {@link Projection};
+     * those that close unopened have nothing to write.
+     */
+    private void open(int index) throws IOException, SAXException {
+        Frame frame = frames.get(index);
+        if (frame.opened) return;
+
+        open(index - 1);
+        openChild(index - 1, frame);
+        frame.opened = true;
+    }
+
+    private void openChild(int parentIndex, Frame child) throws IOException, SAXException {
+        Frame parent = frames.get(parentIndex);
+        parent.hasChildren = true;
+
+        if (parentIndex == 0) {
+            ensureStarted(parentIndex);
+            out(parentIndex).writeFieldName(child.name);
+            child.out = out(parentIndex);
+            child.outOwner = parent.outOwner;
+            return;
+        }
+
+        Group streamed = parent.streamed;
+        if (streamed != null && streamed.isArray && streamed.name.equals(child.name)) {
+            checkArrayLength(parentIndex, streamed);
+            child.group = streamed;
+            child.out = out(parentIndex);
+            child.outOwner = parent.outOwner;
+            return;
+        }
+        closeStreamed(parentIndex);
+
+        if (parent.writtenNames.contains(child.name) && !isRepeatsAsSeparateFields) {
+            throw new SAXException("Element '" + child.name + "' under '" + path(parentIndex)
+                    + "' repeats after it was written; increase the buffer limit or write repeats as separate fields");
+        }
+
+        Group group = parent.groups.get(child.name);
+        if (group == null) {
+            group = new Group(child.name, child.shape != null && child.shape.isArray());
+            parent.groups.put(child.name, group);
+        } else if (!group.isArray) {
+            group.isArray = true;
+            if (child.shape != null) child.shape.learnArray();
+        }
+        checkArrayLength(parentIndex, group);
+        child.group = group;
+        child.out = group.buffer;
+        child.outOwner = parentIndex;
+    }
+
+    /**
+     * Writes the fields in the order of {@link SaxJsonContentHandler}: the children by the first one of a name,
+     * the text in place of a child named by the value prefix, and an attribute joined to a field of its name.
+     */
+    private void closeElement(int index) throws IOException, SAXException {
+        Frame element = frames.get(index);
+        if (!element.hasChildren && element.attributes.getLength() == 0) {
+            if (element.text.isBlank()) element.out.writeNull();
+            else writeText(element.out, element.text.getBuffer(), element.text.getStart(), element.text.trimmedLength());
+            written(index, 1);
+            return;
+        }
+
+        ensureStarted(index);
+        String valuePrefix = elementValueFactory.getValuePrefix();
+        boolean hasText = !element.text.isBlank();
+
+        String streamedArray = element.streamed != null && element.streamed.isArray ? element.streamed.name : null;
+        if (streamedArray != null) writeAttribute(index, streamedArray);
+        closeStreamed(index);
+
+        boolean isTextWritten = false;
+        for (Group group : element.groups.values()) {
+            if (hasText && group.name.equals(valuePrefix)) {
+                writeTextField(index);
+                isTextWritten = true;
+            } else {
+                int attribute = attribute(element, group.name);
+                out(index).writeFieldName(group.name);
+                boolean isArray = group.isArray || attribute >= 0;
+                if (isArray) out(index).writeStartArray();
+                written(index, isArray ? 2 : 1);
+
+                group.buffer.serialize(out(index));
+                written(index, group.tokens);
+                if (attribute >= 0) writeAttribute(index, group.name);
+                if (isArray) {
+                    out(index).writeEndArray();
+                    written(index, 1);
+                }
+            }
+        }
+
+        if (hasText && !isTextWritten) {
+            checkWritten(element, valuePrefix, index, "Text");
+            writeTextField(index);
+        }
+
+        for (int attribute = 0; attribute < element.attributes.getLength(); attribute++) {
+            String name = attributeName(element, attribute);
+            if (name.equals(streamedArray) || element.groups.containsKey(name)) continue;
+            if (hasText && name.equals(valuePrefix)) continue;
+
+            checkWritten(element, name, index, "Attribute '" + name + "'");
+            out(index).writeFieldName(name);
+            writeValue(out(index), convert(element.attributes.getValue(attribute)));
+            written(index, 2);
+        }
+
+        out(index).writeEndObject();
+        written(index, 1);
+    }
+
+    /**
+     * Writes the text, in an array with the attribute named by the value prefix if there is one.
+     */
+    private void writeTextField(int index) throws IOException {
+        Frame element = frames.get(index);
+        String valuePrefix = elementValueFactory.getValuePrefix();
+        boolean isArray = attribute(element, valuePrefix) >= 0;
+
+        out(index).writeFieldName(valuePrefix);
+        if (isArray) out(index).writeStartArray();
+        written(index, isArray ? 2 : 1);
+        writeText(out(index), element.text.getBuffer(), element.text.getStart(), element.text.trimmedLength());
+        written(index, 1);
+        if (isArray) {
+            writeAttribute(index, valuePrefix);
+            out(index).writeEndArray();
+            written(index, 1);
+        }
+    }
+
+    /**
+     * Writes the value of the attribute with the name, if any, into the array being written.
+     */
+    private void writeAttribute(int index, String name) throws IOException {
+        Frame element = frames.get(index);
+        int attribute = attribute(element, name);
+        if (attribute < 0) return;
+
+        writeValue(out(index), convert(element.attributes.getValue(attribute)));
+        written(index, 1);
+    }
+
+    private void checkWritten(Frame element, String name, int index, String what) throws SAXException {
+        if (!element.writtenNames.contains(name) || isRepeatsAsSeparateFields) return;
+
+        throw new SAXException(what + " of '" + path(index) + "' comes after the field '" + name
+                + "' was written; increase the buffer limit or write repeats as separate fields");
+    }
+
+    private int attribute(Frame element, String name) {
+        for (int attribute = 0; attribute < element.attributes.getLength(); attribute++) {
+            if (attributeName(element, attribute).equals(name)) return attribute;
+        }
+        return -1;
+    }
+
+    private String attributeName(Frame element, int attribute) {
+        return elementValueFactory.isUsePrefixForAttributes()
+                ? element.attributes.getQName(attribute, elementValueFactory.getAttrPrefix())
+                : element.attributes.getQName(attribute);
+    }
+
+    /**
+     * Ends the group whose values were written as they came.
+     */
+    private void closeStreamed(int index) throws IOException {
+        Frame frame = frames.get(index);
+        Group streamed = frame.streamed;
+        if (streamed == null) return;
+
+        if (streamed.isArray) {
+            out(index).writeEndArray();
+            written(index, 1);
+        }
+        frame.writtenNames.add(streamed.name);
+        frame.streamed = null;
+    }
+
+    /**
+     * Writes the held groups up to the one of the open child, which goes on as it comes; the groups after it
+     * are held further.
+     */
+    private void flush(int index) throws IOException {
+        Frame frame = frames.get(index);
+        Group open = depth > index ? frames.get(index + 1).group : null;
+        closeStreamed(index);
+        ensureStarted(index);
+
+        Iterator<Group> groups = frame.groups.values().iterator();
+        while (groups.hasNext()) {
+            Group group = groups.next();
+            groups.remove();
+            frame.pendingTokens -= group.tokens;
+
+            out(index).writeFieldName(group.name);
+            if (group.isArray) out(index).writeStartArray();
+            written(index, group.isArray ? 2 : 1);
+            group.buffer.serialize(out(index));
+
+            if (group == open) {
+                redirect(index, group.buffer);
+                written(index, group.tokens);
+                frame.streamed = group;
+                return;
+            }
+
+            written(index, group.tokens);
+            if (group.isArray) {
+                out(index).writeEndArray();
+                written(index, 1);
+            }
+            frame.writtenNames.add(group.name);
+        }
+    }
+
+    private void redirect(int index, TokenBuffer buffer) {
+        Frame owner = frames.get(index);
+        for (int next = index + 1; next <= depth; next++) {
+            Frame frame = frames.get(next);
+            if (frame.out == buffer) {
+                frame.out = out(index);
+                frame.outOwner = owner.outOwner;
+            }
+        }
+    }
+
+    private void ensureStarted(int index) throws IOException {
+        Frame frame = frames.get(index);
+        if (frame.started) return;
+
+        frame.started = true;
+        out(index).writeStartObject();
+        written(index, 1);
+    }
+
+    private JsonGenerator out(int index) {
+        return frames.get(index).out;
+    }
+
+    /**
+     * Counts the tokens written by the frame against the group of the element holding them.
+     */
+    private void written(int index, int tokens) throws IOException {
+        int ownerIndex = frames.get(index).outOwner;
+        if (ownerIndex < 0) return;
+
+        Frame owner = frames.get(ownerIndex);
+        frames.get(ownerIndex + 1).group.tokens += tokens;
+        owner.pendingTokens += tokens;
+        if (owner.pendingTokens > bufferLimit) flush(ownerIndex);
+    }
+
+    private JsonNode convert(String value) {
+        ValueNode node = SaxToJsonValueConverter.convert(
+                value,
+                elementValueFactory.isConvertToJsonPrimitives(),
+                elementValueFactory.isUseBigDecimalForFloats()
+        );
+        if (conversionListener != null) conversionListener.onValue(node);
+        return node;
+    }
+
+    /**
+     * Writes text from chars; a string is created only for a number too large for a long, or for the listener.
+     */
+    private void writeText(JsonGenerator out, char[] text, int start, int length) throws IOException {
+        if (conversionListener != null) {
+            ValueNode value = SaxToJsonValueConverter.convert(text, start, length,
+                    elementValueFactory.isConvertToJsonPrimitives(), elementValueFactory.isUseBigDecimalForFloats());
+            conversionListener.onValue(value);
+            writeValue(out, value);
+            return;
+        }
+        if (elementValueFactory.isConvertToJsonPrimitives()) {
+            JsonNode value = SaxToJsonValueConverter.toPrimitive(
+                    text, start, length, elementValueFactory.isUseBigDecimalForFloats());
+            if (value != null) {
+                writeValue(out, value);
+                return;
+            }
+        }
+        out.writeString(text, start, length);
+    }
+
+    private void checkElementLimits(ConversionLimits limits, String name) throws ConversionLimitException {
+        if (depth + 1 > limits.getMaxDepth()) {
+            throw new ConversionLimitException(
+                    ConversionLimits.Limit.DEPTH, depth + 1, limits.getMaxDepth(), path(depth, name));
+        }
+        if (++elements > limits.getMaxElements()) {
+            throw new ConversionLimitException(
+                    ConversionLimits.Limit.ELEMENTS, elements, limits.getMaxElements(), path(depth, name));
+        }
+    }
+
+    /**
+     * Counts the child joining the group against the limit the tree checks for the array of its name.
+     */
+    private void checkArrayLength(int parentIndex, Group group) throws ConversionLimitException {
+        group.size++;
+        if (limits != null && group.size > limits.getMaxArrayLength()) {
+            throw new ConversionLimitException(ConversionLimits.Limit.ARRAY_LENGTH,
+                    group.size, limits.getMaxArrayLength(), path(parentIndex, group.name));
+        }
+    }
+
+    private String path(int index, String name) {
+        String parent = path(index);
+        return parent.length() == 1 ? parent + name : parent + '/' + name;
+    }
+
+    private String path(int index) {
+        StringBuilder path = new StringBuilder();
+        for (int frame = 1; frame <= index; frame++) path.append('/').append(frames.get(frame).name);
+        return path.length() == 0 ? "/" : path.toString();
+    }
+
+    private static void writeValue(JsonGenerator out, JsonNode value) throws IOException {
+        if (value.isTextual()) out.writeString(value.textValue());
+        else if (value.isBoolean()) out.writeBoolean(value.booleanValue());
+        else if (value.isInt()) out.writeNumber(value.intValue());
+        else if (value.isLong()) out.writeNumber(value.longValue());
+        else if (value.isBigInteger()) out.writeNumber(value.bigIntegerValue());
+        else if (value.isBigDecimal()) out.writeNumber(value.decimalValue());
+        else if (value.isNumber()) out.writeNumber(value.doubleValue());
+        else out.writeNull();
+    }
+
+    private static class Frame {
+        private String name;
+        private final ElementAttributes attributes;
+        private ShapeRegistry.Node shape;
+        private long projectionState;
+        private boolean opened;
+        private final ElementText text;
+
+        private JsonGenerator out;
+        private int outOwner;
+        private boolean started;
+        private boolean hasChildren;
+        private Group group;
+
+        private final Map<String, Group> groups = new LinkedHashMap<>();
+        private int pendingTokens;
+        private Group streamed;
+        private final Set<String> writtenNames = new HashSet<>();
+
+        private Frame(SymbolTable symbols, TextArena arena) {
+            this.attributes = new ElementAttributes(symbols);
+            this.text = new ElementText(arena);
+        }
+
+        private void open(String name, Attributes attributes) {
+            this.name = name;
+            if (attributes == null) this.attributes.clear();
+            else this.attributes.copyOf(attributes);
+            text.clear();
+            out = null;
+            outOwner = -1;
+            started = false;
+            hasChildren = false;
+            group = null;
+            groups.clear();
+            pendingTokens = 0;
+            streamed = null;
+            writtenNames.clear();
+        }
+    }
+
+    /**
+     * Children of one name: held in a buffer until the element closes or holds too much, then written as
+     * a field.
+     */
+    private static class Group {
+        private final String name;
+        private final TokenBuffer buffer = new TokenBuffer(null, false);
+        private boolean isArray;
+        private int tokens;
+        private int size;
+
+        private Group(String name, boolean isArray) {
+            this.name = name;
+            this.isArray = isArray;
+        }
+    }
+}
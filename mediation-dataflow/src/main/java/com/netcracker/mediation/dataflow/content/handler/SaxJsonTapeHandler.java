@@ -0,0 +1,267 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.netcracker.mediation.dataflow.content.handler.JsonTape.*;
+
+/**
+ * Records a document as a {@link JsonTape} instead of building the tree. The settings, the arrays of the
+ * {@link ShapeRegistry} and the {@link Projection} of the factory are applied the way {@link SaxJsonContentHandler}
+ * applies them; the registry isn't taught new arrays. The depth, element and text limits are checked while the
+ * document is read, and the listener is told of the elements, the texts and the parse time. The values are only
+ * converted when the tape is read, so the listener doesn't see them and the array length limit isn't checked. The
+ * handler can convert any number of documents, one at a time; each tape owns its arrays.
+ */
+public class SaxJsonTapeHandler extends DefaultHandler {
+
+    private static final int INITIAL_TAPE_SIZE = 256;
+    private static final int INITIAL_CHARS_SIZE = 1024;
+
+    private final ElementValueHolderFactory elementValueFactory;
+    private final SymbolTable symbols = new SymbolTable();
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final TextArena arena = new TextArena();
+    private final List<ElementText> texts = new ArrayList<>();
+    private final List<ShapeRegistry.Node> shapes = new ArrayList<>();
+
+    private int[] tape = new int[INITIAL_TAPE_SIZE];
+    private int tapeLength;
+    private char[] chars = new char[INITIAL_CHARS_SIZE];
+    private int charsLength;
+    private int[] elements = new int[16];
+    private int depth;
+
+    private boolean isUsePrefixForAttributes;
+    private String attrPrefix;
+
+    private Projection projection;
+    private long[] projectionStates = new long[16];
+    private int skipped;
+
+    private ConversionLimits limits;
+    private long elementCount;
+    private ConversionListener conversionListener;
+    private long documentStart;
+
+    private JsonTape result;
+
+    public SaxJsonTapeHandler() {
+        this(new ElementValueHolderFactory());
+    }
+
+    public SaxJsonTapeHandler(ElementValueHolderFactory elementValueFactory) {
+        this.elementValueFactory = elementValueFactory;
+    }
+
+    @Override
+    public void startDocument() throws SAXException {
+        if (tape == null) {
+            tape = new int[Math.max(INITIAL_TAPE_SIZE, tapeLength)];
+            chars = new char[Math.max(INITIAL_CHARS_SIZE, charsLength)];
+        }
+        tapeLength = 0;
+        charsLength = 0;
+        arena.clear();
+        nameIds.clear();
+        names.clear();
+        result = null;
+
+        isUsePrefixForAttributes = elementValueFactory.isUsePrefixForAttributes();
+        attrPrefix = elementValueFactory.getAttrPrefix();
+        projection = elementValueFactory.getProjection();
+        if (projection != null) projectionStates[0] = projection.start();
+        skipped = 0;
+        limits = elementValueFactory.getLimits();
+        elementCount = 0;
+        conversionListener = elementValueFactory.getConversionListener();
+        if (conversionListener != null) documentStart = System.nanoTime();
+
+        depth = 0;
+        ShapeRegistry shapeRegistry = elementValueFactory.getShapeRegistry();
+        open(-1, 0, shapeRegistry == null ? null : shapeRegistry.root());
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+        if (skipElement(qName)) return;
+
+        String name = symbols.lookup(qName);
+        if (limits != null) checkElementLimits(limits, name);
+        ShapeRegistry.Node parentShape = shapes.get(depth - 1);
+        ShapeRegistry.Node shape = parentShape == null ? null : parentShape.child(name);
+        int element = open(id(name), attributes.getLength(), shape);
+        if (shape != null && shape.isArray()) tape[element + FLAGS] = ARRAY;
+
+        for (int index = 0; index < attributes.getLength(); index++) {
+            String key = symbols.lookup(attributes.getQName(index));
+            if (isUsePrefixForAttributes) key = symbols.prefixed(attrPrefix, key);
+            String value = attributes.getValue(index);
+
+            int attribute = element + HEADER_SIZE + index * ATTRIBUTE_SIZE;
+            tape[attribute] = id(key);
+            tape[attribute + 1] = charsLength;
+            tape[attribute + 2] = value.length();
+            ensureChars(value.length());
+            value.getChars(0, value.length(), chars, charsLength);
+            charsLength += value.length();
+        }
+        if (conversionListener != null) conversionListener.onElement(depth - 1, attributes.getLength());
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        if (skipped > 0) return;
+
+        ElementText text = texts.get(depth - 1);
+        if (limits != null && text.length() + length > limits.getMaxTextLength()) {
+            throw new ConversionLimitException(ConversionLimits.Limit.TEXT_LENGTH,
+                    text.length() + length, limits.getMaxTextLength(), path(depth - 1, null));
+        }
+        text.append(ch, start, length);
+        if (conversionListener != null) conversionListener.onText(length);
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        if (skipped > 0) {
+            skipped--;
+            return;
+        }
+
+        int element = elements[--depth];
+        if (projection != null && (projectionStates[depth] & Projection.INCLUDED) == 0
+                && element + HEADER_SIZE + tape[element + ATTRIBUTES] * ATTRIBUTE_SIZE == tapeLength) {
+            if (tape[element + ATTRIBUTES] > 0) charsLength = tape[element + HEADER_SIZE + 1];
+            tapeLength = element;
+            texts.get(depth).release();
+            return;
+        }
+        close(element, texts.get(depth));
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        if (depth != 1) throw new IllegalArgumentException("The document is still opened");
+
+        tape[--depth + END] = tapeLength;
+        result = new JsonTape(tape, chars, names.toArray(new String[0]), elementValueFactory);
+        tape = null;
+        chars = null;
+        if (conversionListener != null) {
+            conversionListener.onPhase(ConversionListener.Phase.PARSE, System.nanoTime() - documentStart);
+        }
+    }
+
+    /**
+     * @return the tape of the last document, or {@code null} until it ends
+     */
+    public JsonTape getTape() {
+        return result;
+    }
+
+    public ElementValueHolderFactory getElementValueFactory() {
+        return elementValueFactory;
+    }
+
+    private boolean skipElement(String name) {
+        if (skipped > 0) {
+            skipped++;
+            return true;
+        }
+        if (projection == null) return false;
+
+        long state = projection.next(projectionStates[depth - 1], name);
+        if (state == 0) {
+            skipped = 1;
+            return true;
+        }
+
+        if (depth == projectionStates.length) projectionStates = Arrays.copyOf(projectionStates, depth * 2);
+        projectionStates[depth] = state;
+        return false;
+    }
+
+    private void checkElementLimits(ConversionLimits limits, String name) throws ConversionLimitException {
+        if (depth > limits.getMaxDepth()) {
+            throw new ConversionLimitException(
+                    ConversionLimits.Limit.DEPTH, depth, limits.getMaxDepth(), path(depth - 1, name));
+        }
+        if (++elementCount > limits.getMaxElements()) {
+            throw new ConversionLimitException(
+                    ConversionLimits.Limit.ELEMENTS, elementCount, limits.getMaxElements(), path(depth - 1, name));
+        }
+    }
+
+    /**
+     * @param last index of the last open element on the path
+     * @param name element being opened under it, or {@code null}
+     */
+    private String path(int last, String name) {
+        StringBuilder path = new StringBuilder();
+        for (int index = 1; index <= last; index++) path.append('/').append(names.get(tape[elements[index] + NAME]));
+        if (name != null) path.append('/').append(name);
+        return path.toString();
+    }
+
+    /**
+     * Writes the header of an element; its end and its text are written when it closes.
+     */
+    private int open(int name, int attributes, ShapeRegistry.Node shape) {
+        int element = tapeLength;
+        int size = HEADER_SIZE + attributes * ATTRIBUTE_SIZE;
+        if (tapeLength + size > tape.length) tape = Arrays.copyOf(tape, Math.max(tape.length * 2, tapeLength + size));
+        tape[element + FLAGS] = 0;
+        tape[element + NAME] = name;
+        tape[element + END] = 0;
+        tape[element + ATTRIBUTES] = attributes;
+        tape[element + TEXT] = 0;
+        tape[element + TEXT_LENGTH] = 0;
+        tapeLength += size;
+
+        if (depth == elements.length) elements = Arrays.copyOf(elements, depth * 2);
+        elements[depth] = element;
+        if (depth == texts.size()) texts.add(new ElementText(arena));
+        texts.get(depth).clear();
+        if (depth == shapes.size()) shapes.add(shape);
+        else shapes.set(depth, shape);
+        depth++;
+        return element;
+    }
+
+    private void close(int element, ElementText text) {
+        int length = text.trimmedLength();
+        if (length > 0) {
+            ensureChars(length);
+            text.getChars(chars, charsLength);
+            tape[element + TEXT] = charsLength;
+            tape[element + TEXT_LENGTH] = length;
+            charsLength += length;
+        }
+        text.release();
+        tape[element + END] = tapeLength;
+    }
+
+    private int id(String name) {
+        Integer id = nameIds.get(name);
+        if (id != null) return id;
+
+        nameIds.put(name, names.size());
+        names.add(name);
+        return names.size() - 1;
+    }
+
+    private void ensureChars(int length) {
+        if (charsLength + length > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charsLength + length));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.node.DecimalNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ValueNode;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+public class SaxToJsonValueConverter {
+
+    private static final int MAX_LONG_DIGITS = 18;
+    private static final int MAX_DOUBLE_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static JsonNodeFactory factory = JsonNodeFactory.instance;
+
+    public static ValueNode convert(final String text, boolean isConvertToJsonPrimitives) {
+        return convert(text, isConvertToJsonPrimitives, false);
+    }
+
+    /**
+     * @param isUseBigDecimalForFloats keep every decimal as an exact {@link BigDecimal}; otherwise a decimal
+     *                                 becomes a double when the double holds it and is written the same way,
+     *                                 and stays a {@link BigDecimal} with its scale when it isn't; the scale
+     *                                 is kept, not stripped as by {@link JsonNodeFactory#instance}
+     */
+    public static ValueNode convert(final String text, boolean isConvertToJsonPrimitives, boolean isUseBigDecimalForFloats) {
+        if (isConvertToJsonPrimitives && text != null) {
+            ValueNode value = toPrimitive(text, isUseBigDecimalForFloats);
+            if (value != null) return value;
+        }
+        return factory.textNode(text);
+    }
+
+    /**
+     * Converts a slice of chars, creating a string only for a text value or a number too large for a long.
+     */
+    public static ValueNode convert(char[] ch, int start, int length, boolean isConvertToJsonPrimitives,
+                                    boolean isUseBigDecimalForFloats) {
+        if (isConvertToJsonPrimitives) {
+            ValueNode value = toPrimitive(ch, start, length, isUseBigDecimalForFloats);
+            if (value != null) return value;
+        }
+        return factory.textNode(new String(ch, start, length));
+    }
+
+    /**
+     * @return the number or boolean in the slice, {@code null} when it's text
+     */
+    public static ValueNode toPrimitive(char[] ch, int start, int length, boolean isUseBigDecimalForFloats) {
+        if (length == 0 || !mayBePrimitive(ch[start])) return null;
+
+        char first = ch[start];
+        if (first == 't' || first == 'T' || first == 'f' || first == 'F') return toBoolean(ch, start, length);
+
+        int end = start + length;
+        boolean negative = first == '-';
+        int point = -1;
+        int digits = 0;
+        long mantissa = 0;
+
+        for (int index = negative ? start + 1 : start; index < end; index++) {
+            char c = ch[index];
+            if (c >= '0' && c <= '9') {
+                if (digits > 0 || c != '0') {
+                    digits++;
+                    if (digits <= MAX_LONG_DIGITS) mantissa = mantissa * 10 + (c - '0');
+                }
+            } else if (c == '.' && point < 0) {
+                point = index;
+            } else {
+                return null;
+            }
+        }
+
+        int scale = point < 0 ? 0 : end - point - 1;
+        if (scale == 0 && point >= 0) return null;
+        if (length == (negative ? 1 : 0) + (point < 0 ? 0 : 1)) return null;
+
+        if (point < 0) {
+            if (digits <= MAX_LONG_DIGITS) {
+                long value = negative ? -mantissa : mantissa;
+                return value == (int) value ? factory.numberNode((int) value) : factory.numberNode(value);
+            }
+
+            BigInteger value = new BigInteger(new String(ch, start, length));
+            return value.bitLength() < Long.SIZE ? factory.numberNode(value.longValue()) : factory.numberNode(value);
+        }
+
+        if (!isUseBigDecimalForFloats && digits <= MAX_DOUBLE_DIGITS && scale < POWERS_OF_TEN.length) {
+            double value = mantissa / POWERS_OF_TEN[scale];
+            if (isWrittenAsIs(value, scale, ch[end - 1])) {
+                return factory.numberNode(negative && mantissa != 0 ? -value : value);
+            }
+        }
+        return DecimalNode.valueOf(new BigDecimal(ch, start, length));
+    }
+
+    /**
+     * A double is written with the fewest digits that read back as it, and without an exponent only from 10^-3
+     * to 10^7, so "1.50" would be written as 1.5 and "0.00001" as 1.0E-5.
+     */
+    private static boolean isWrittenAsIs(double value, int scale, char last) {
+        if (last == '0' && scale > 1) return false;
+        return value == 0 || value >= 1e-3 && value < 1e7;
+    }
+
+    private static ValueNode toPrimitive(String text, boolean isUseBigDecimalForFloats) {
+        if (text.isEmpty() || !mayBePrimitive(text.charAt(0))) return null;
+
+        char[] chars = text.toCharArray();
+        return toPrimitive(chars, 0, chars.length, isUseBigDecimalForFloats);
+    }
+
+    private static boolean mayBePrimitive(char first) {
+        return first >= '0' && first <= '9' || first == '-' || first == '.'
+                || first == 't' || first == 'T' || first == 'f' || first == 'F';
+    }
+
+    private static ValueNode toBoolean(char[] ch, int start, int length) {
+        if (length == 4 && matches(ch, start, "true")) return factory.booleanNode(true);
+        if (length == 5 && matches(ch, start, "false")) return factory.booleanNode(false);
+        return null;
+    }
+
+    private static boolean matches(char[] ch, int start, String lowerCase) {
+        for (int index = 0; index < lowerCase.length(); index++) {
+            if (Character.toLowerCase(ch[start + index]) != lowerCase.charAt(index)) return false;
+        }
+        return true;
+    }
+}
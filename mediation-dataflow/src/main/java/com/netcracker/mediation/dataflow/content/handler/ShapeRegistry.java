@@ -0,0 +1,113 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Element paths whose values are always arrays, declared up front or learned from the documents converted so far.
+ * An element at such a path becomes an array even when it occurs once, and its array is created with the first
+ * value instead of when the second one shows up. The registry can be shared by converters on any number of
+ * threads; once {@code maxPaths} paths are known, new paths are neither stored nor learned.
+ */
+public class ShapeRegistry {
+
+    public static final int DEFAULT_MAX_PATHS = 10000;
+
+    private final Node root = new Node();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int maxPaths;
+    private final boolean isLearning;
+
+    public ShapeRegistry() {
+        this(DEFAULT_MAX_PATHS, true);
+    }
+
+    /**
+     * @param isLearning mark a path as an array when an element repeats at it; otherwise only declared paths are
+     *                   arrays
+     */
+    public ShapeRegistry(int maxPaths, boolean isLearning) {
+        this.maxPaths = maxPaths;
+        this.isLearning = isLearning;
+    }
+
+    /**
+     * @param path element path like {@code /CATALOG/CD}
+     */
+    public ShapeRegistry declareArray(String path) {
+        Node node = root;
+        for (String step : SaxJsonContentHandler.splitRecordPath(path)) {
+            Node child = node.children.get(step);
+            if (child == null) {
+                size.incrementAndGet();
+                child = node.add(step);
+            }
+            node = child;
+        }
+        node.isArray = true;
+        return this;
+    }
+
+    public boolean isArray(String path) {
+        Node node = root;
+        for (String step : SaxJsonContentHandler.splitRecordPath(path)) {
+            node = node.children.get(step);
+            if (node == null) return false;
+        }
+        return node.isArray;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public int getMaxPaths() {
+        return maxPaths;
+    }
+
+    public boolean isLearning() {
+        return isLearning;
+    }
+
+    Node root() {
+        return root;
+    }
+
+    final class Node {
+
+        private final ConcurrentMap<String, Node> children = new ConcurrentHashMap<>();
+        private volatile boolean isArray;
+
+        /**
+         * @return the node of the child path, or {@code null} when it isn't known and can't be added
+         */
+        Node child(String name) {
+            Node child = children.get(name);
+            if (child != null || !isLearning) return child;
+
+            if (size.incrementAndGet() > maxPaths) {
+                size.decrementAndGet();
+                return null;
+            }
+            return add(name);
+        }
+
+        private Node add(String name) {
+            Node created = new Node();
+            Node existing = children.putIfAbsent(name, created);
+            if (existing == null) return created;
+
+            size.decrementAndGet();
+            return existing;
+        }
+
+        boolean isArray() {
+            return isArray;
+        }
+
+        void learnArray() {
+            if (isLearning && !isArray) isArray = true;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Pull-based counterpart of {@link SaxJsonContentHandler}: reads an {@link XMLStreamReader} and builds the same
+ * tree with the same {@link ElementValueHolderFactory} settings. Text is taken straight from the reader's buffer.
+ */
+public class StaxJsonConverter {
+
+    private final SaxJsonContentHandler handler;
+
+    public StaxJsonConverter() {
+        this(new ElementValueHolderFactory());
+    }
+
+    public StaxJsonConverter(ElementValueHolderFactory elementValueFactory) {
+        this.handler = new SaxJsonContentHandler(elementValueFactory);
+    }
+
+    /**
+     * Converts the document from the current position of the reader to its end.
+     */
+    public JsonNode convert(XMLStreamReader reader) throws XMLStreamException {
+        handler.openDocument();
+        for (int event = reader.getEventType(); ; event = reader.next()) {
+            handle(handler, reader, event);
+            if (!reader.hasNext()) break;
+        }
+        handler.closeDocument();
+        return handler.getTree();
+    }
+
+    /**
+     * Converts the element the reader stands on and leaves the reader on its end tag, so the caller
+     * can pick the elements to convert and skip the rest.
+     */
+    public JsonNode convertElement(XMLStreamReader reader) throws XMLStreamException {
+        reader.require(XMLStreamConstants.START_ELEMENT, null, null);
+        String name = qName(handler, reader);
+
+        handler.openDocument();
+        int depth = 0;
+        for (int event = reader.getEventType(); ; event = reader.next()) {
+            handle(handler, reader, event);
+            if (event == XMLStreamConstants.START_ELEMENT) depth++;
+            else if (event == XMLStreamConstants.END_ELEMENT && --depth == 0) break;
+        }
+        handler.closeDocument();
+        return handler.getTree().get(name);
+    }
+
+    public ElementValueHolderFactory getElementValueFactory() {
+        return handler.getElementValueFactory();
+    }
+
+    public String getRecordPath() {
+        return handler.getRecordPath();
+    }
+
+    public RecordListener getRecordListener() {
+        return handler.getRecordListener();
+    }
+
+    public StaxJsonConverter setRecordListener(String recordPath, RecordListener recordListener) {
+        handler.setRecordListener(recordPath, recordListener);
+        return this;
+    }
+
+    /**
+     * @throws XMLStreamException with a {@link ConversionLimitException} as the cause when a limit is reached
+     */
+    static void handle(SaxJsonContentHandler handler, XMLStreamReader reader, int event) throws XMLStreamException {
+        try {
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    String name = qName(handler, reader);
+                    if (!handler.skipElement(name)) handler.openElement(name, handler.nextAttributes().copyOf(reader));
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    handler.closeElement();
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                    handler.appendText(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    break;
+                default:
+            }
+        } catch (ConversionLimitException e) {
+            throw new XMLStreamException(e.getMessage(), reader.getLocation(), e);
+        }
+    }
+
+    static String qName(SaxJsonContentHandler handler, XMLStreamReader reader) {
+        return handler.getSymbolTable().lookup(reader.getPrefix(), reader.getLocalName());
+    }
+}
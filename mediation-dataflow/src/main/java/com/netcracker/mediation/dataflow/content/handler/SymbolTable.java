@@ -0,0 +1,128 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+/**
+ * Canonical instances of element and attribute names, looked up by the parser's chars without creating a string,
+ * together with the prefixed attribute key of each name. Once {@code maxSize} names are stored, new names are
+ * returned as they are. Not thread safe: one table per converter.
+ */
+public class SymbolTable {
+
+    public static final int DEFAULT_MAX_SIZE = 4096;
+
+    private final int maxSize;
+    private final int mask;
+    private final String[] names;
+    private final String[] prefixes;
+    private final String[] prefixedNames;
+    private int size;
+
+    public SymbolTable() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public SymbolTable(int maxSize) {
+        if (maxSize < 1) throw new IllegalArgumentException("Wrong max size: " + maxSize);
+
+        int capacity = Integer.highestOneBit(maxSize * 2 - 1) << 1;
+        this.maxSize = maxSize;
+        this.mask = capacity - 1;
+        this.names = new String[capacity];
+        this.prefixes = new String[capacity];
+        this.prefixedNames = new String[capacity];
+    }
+
+    public String lookup(char[] ch, int start, int length) {
+        int hash = 0;
+        for (int index = start; index < start + length; index++) hash = 31 * hash + ch[index];
+
+        int slot = slot(hash);
+        for (String name = names[slot]; name != null; name = names[slot = next(slot)]) {
+            if (name.length() == length && equals(name, ch, start)) return name;
+        }
+        return add(slot, new String(ch, start, length));
+    }
+
+    public String lookup(String name) {
+        int slot = find(name);
+        return slot < 0 ? name : names[slot];
+    }
+
+    /**
+     * @return the canonical {@code prefix:localName}, or the local name when there is no prefix
+     */
+    public String lookup(String prefix, String localName) {
+        if (prefix == null || prefix.isEmpty()) return lookup(localName);
+
+        int hash = 31 * prefix.hashCode() + ':';
+        for (int index = 0; index < localName.length(); index++) hash = 31 * hash + localName.charAt(index);
+
+        int length = prefix.length() + 1 + localName.length();
+        int slot = slot(hash);
+        for (String name = names[slot]; name != null; name = names[slot = next(slot)]) {
+            if (name.length() == length && name.startsWith(prefix) && name.charAt(prefix.length()) == ':'
+                    && name.startsWith(localName, prefix.length() + 1)) {
+                return name;
+            }
+        }
+        return add(slot, prefix + ':' + localName);
+    }
+
+    /**
+     * @return {@code prefix + name}, created once per name and prefix
+     */
+    public String prefixed(String prefix, String name) {
+        int slot = find(name);
+        if (slot < 0) return prefix + name;
+
+        String prefixedName = prefixedNames[slot];
+        if (prefixedName == null || !prefix.equals(prefixes[slot])) {
+            prefixedName = prefix + name;
+            prefixes[slot] = prefix;
+            prefixedNames[slot] = prefixedName;
+        }
+        return prefixedName;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private int find(String name) {
+        int slot = slot(name.hashCode());
+        for (String symbol = names[slot]; symbol != null; symbol = names[slot = next(slot)]) {
+            if (symbol.equals(name)) return slot;
+        }
+        if (size == maxSize) return -1;
+
+        names[slot] = name;
+        size++;
+        return slot;
+    }
+
+    private String add(int slot, String name) {
+        if (size == maxSize) return name;
+
+        names[slot] = name;
+        size++;
+        return name;
+    }
+
+    private int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private int next(int slot) {
+        return (slot + 1) & mask;
+    }
+
+    private static boolean equals(String name, char[] ch, int start) {
+        for (int index = 0; index < name.length(); index++) {
+            if (name.charAt(index) != ch[start + index]) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,73 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+/**
+ * Chars of the text of the open elements of one conversion, kept in one array that is reused from document to
+ * document. The text of each element is a slice of it, see {@link ElementText}. Text only grows at the innermost
+ * open element, and children give their slices back when they close, so the text of an element stays in one
+ * slice even when its children split it. Not thread safe: one arena per converter.
+ */
+public class TextArena {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+    private char[] chars = new char[INITIAL_CAPACITY];
+    private int top;
+
+    /**
+     * @return the end of the used part, where the next slice starts
+     */
+    public int top() {
+        return top;
+    }
+
+    public int capacity() {
+        return chars.length;
+    }
+
+    /**
+     * Forgets every slice, for the next document.
+     */
+    public void clear() {
+        if (chars.length > MAX_RETAINED_CAPACITY) chars = new char[INITIAL_CAPACITY];
+        top = 0;
+    }
+
+    /**
+     * The array is replaced when it grows, so it's only valid until the next append.
+     */
+    char[] chars() {
+        return chars;
+    }
+
+    /**
+     * Appends to the slice ending at {@code end}; whatever lies after it was given back.
+     */
+    void append(int end, char[] ch, int start, int length) {
+        ensureCapacity(end + length);
+        System.arraycopy(ch, start, chars, end, length);
+        top = end + length;
+    }
+
+    void append(int end, String text, int start) {
+        int length = text.length() - start;
+        ensureCapacity(end + length);
+        text.getChars(start, text.length(), chars, end);
+        top = end + length;
+    }
+
+    /**
+     * Gives back the slice starting at {@code start} and everything after it.
+     */
+    void release(int start) {
+        top = start;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= chars.length) return;
+
+        char[] grown = new char[Math.max(capacity, chars.length * 2)];
+        System.arraycopy(chars, 0, grown, 0, top);
+        chars = grown;
+    }
+}
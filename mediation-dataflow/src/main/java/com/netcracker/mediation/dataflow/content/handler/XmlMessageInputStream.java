@@ -0,0 +1,256 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Shows the messages of a stream one at a time: after {@link #nextMessage()} the stream ends where the current
+ * message does. A message ends after a delimiter, which isn't part of it, or, without one, after the end tag of its
+ * root element; the bytes are lexed like {@link XmlRecordScanner} does, so the encoding has to be ASCII compatible,
+ * and the internal subset of a DOCTYPE is only followed by its brackets and quotes.
+ * Whitespace before a message is skipped. Closing the stream only ends the current message, the parsers close it
+ * after every document.
+ */
+final class XmlMessageInputStream extends InputStream {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int TEXT = 0;
+    private static final int MARKUP = 1;
+    private static final int START_TAG = 2;
+    private static final int END_TAG = 3;
+    private static final int DECLARATION = 4;
+    private static final int DECLARATION_TYPE = 5;
+    private static final int COMMENT = 6;
+    private static final int CDATA = 7;
+    private static final int INSTRUCTION = 8;
+
+    private static final int COMMENT_END = '-' << 16 | '-' << 8 | '>';
+    private static final int CDATA_END = ']' << 16 | ']' << 8 | '>';
+    private static final int INSTRUCTION_END = '?' << 8 | '>';
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final byte[] buffer;
+    private final byte[] single = new byte[1];
+    private int position;
+    private int limit;
+    private boolean isEndOfInput;
+    private boolean isInMessage;
+
+    private int state;
+    private int depth;
+    private int brackets;
+    private int quote;
+    private int tail;
+
+    /**
+     * @param delimiter bytes between the messages, or {@code null} to split after every root element
+     */
+    XmlMessageInputStream(InputStream in, byte[] delimiter) {
+        if (delimiter != null && delimiter.length == 0) throw new IllegalArgumentException("Empty delimiter");
+        this.in = in;
+        this.delimiter = delimiter == null ? null : delimiter.clone();
+        this.buffer = new byte[Math.max(BUFFER_SIZE, delimiter == null ? 0 : delimiter.length * 2)];
+    }
+
+    /**
+     * Skips the rest of the current message and starts the next one.
+     *
+     * @return {@code false} when the input has no more messages
+     */
+    boolean nextMessage() throws IOException {
+        if (isInMessage) skipMessage();
+
+        while (true) {
+            if (position == limit && !fill(1)) return false;
+            if (isWhitespace(buffer[position])) {
+                position++;
+            } else if (delimiter != null && startsWithDelimiter()) {
+                position += delimiter.length;
+            } else {
+                break;
+            }
+        }
+
+        state = TEXT;
+        depth = 0;
+        brackets = 0;
+        quote = 0;
+        tail = 0;
+        isInMessage = true;
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (!isInMessage) return -1;
+        if (len == 0) return 0;
+        if (!fill(delimiter == null ? 1 : delimiter.length)) {
+            isInMessage = false;
+            return -1;
+        }
+
+        int end = Math.min(limit, position + len);
+        int count = delimiter == null ? scanRoot(end) : scanDelimiter(end);
+        System.arraycopy(buffer, position, b, off, count);
+        position += count;
+        if (!isInMessage && delimiter != null) position += delimiter.length;
+        return count == 0 ? -1 : count;
+    }
+
+    @Override
+    public int available() {
+        return isInMessage ? limit - position : 0;
+    }
+
+    /**
+     * Ends the current message; the underlying stream stays open.
+     */
+    @Override
+    public void close() {
+        isInMessage = false;
+    }
+
+    private void skipMessage() throws IOException {
+        byte[] skipped = new byte[BUFFER_SIZE];
+        int count;
+        do {
+            count = read(skipped, 0, skipped.length);
+        } while (count >= 0);
+    }
+
+    /**
+     * @return the number of bytes up to the end of the root element, or up to {@code end} when it isn't there
+     */
+    private int scanRoot(int end) {
+        for (int index = position; index < end; index++) {
+            int ch = buffer[index] & 0xFF;
+            if (lex(ch)) {
+                isInMessage = false;
+                return index + 1 - position;
+            }
+        }
+        return end - position;
+    }
+
+    /**
+     * @return {@code true} when the byte closes the root element
+     */
+    private boolean lex(int ch) {
+        int previous = tail & 0xFF;
+        tail = (tail << 8 | ch) & 0xFFFFFF;
+        switch (state) {
+            case TEXT:
+                if (ch == '<') state = MARKUP;
+                return false;
+            case MARKUP:
+                if (ch == '?') state = INSTRUCTION;
+                else if (ch == '!') state = DECLARATION_TYPE;
+                else if (ch == '/') state = END_TAG;
+                else state = START_TAG;
+                tail = 0;
+                return false;
+            case DECLARATION_TYPE:
+                if (ch == '-') state = COMMENT;
+                else if (ch == '[') state = CDATA;
+                else state = DECLARATION;
+                return false;
+            case START_TAG:
+                if (quote != 0) {
+                    if (ch == quote) quote = 0;
+                } else if (ch == '"' || ch == '\'') {
+                    quote = ch;
+                } else if (ch == '>') {
+                    state = TEXT;
+                    if (previous != '/') depth++;
+                    else return depth == 0;
+                }
+                return false;
+            case END_TAG:
+                if (ch != '>') return false;
+                state = TEXT;
+                return --depth <= 0;
+            case DECLARATION:
+                if (quote != 0) {
+                    if (ch == quote) quote = 0;
+                } else if (ch == '"' || ch == '\'') {
+                    quote = ch;
+                } else if (ch == '[') {
+                    brackets++;
+                } else if (ch == ']') {
+                    brackets--;
+                } else if (ch == '>' && brackets <= 0) {
+                    state = TEXT;
+                }
+                return false;
+            case COMMENT:
+                if (tail == COMMENT_END) state = TEXT;
+                return false;
+            case CDATA:
+                if (tail == CDATA_END) state = TEXT;
+                return false;
+            default:
+                if ((tail & 0xFFFF) == INSTRUCTION_END) state = TEXT;
+                return false;
+        }
+    }
+
+    /**
+     * @return the number of bytes before the delimiter, or before the bytes that may start one
+     */
+    private int scanDelimiter(int end) {
+        int last = isEndOfInput ? end : Math.min(end, limit - delimiter.length + 1);
+        for (int index = position; index < last; index++) {
+            if (buffer[index] == delimiter[0] && startsWithDelimiter(index)) {
+                isInMessage = false;
+                return index - position;
+            }
+        }
+        return last - position;
+    }
+
+    private boolean startsWithDelimiter() throws IOException {
+        fill(delimiter.length);
+        return startsWithDelimiter(position);
+    }
+
+    private boolean startsWithDelimiter(int from) {
+        if (limit - from < delimiter.length) return false;
+        for (int index = 0; index < delimiter.length; index++) {
+            if (buffer[from + index] != delimiter[index]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Makes sure the buffer holds at least {@code needed} unread bytes, unless the input ends first. The unread
+     * bytes are moved to the start of the buffer before reading more.
+     *
+     * @return {@code false} when no byte is left
+     */
+    private boolean fill(int needed) throws IOException {
+        if (limit - position >= needed) return true;
+
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        while (!isEndOfInput && limit < needed) {
+            int count = in.read(buffer, limit, buffer.length - limit);
+            if (count < 0) isEndOfInput = true;
+            else limit += count;
+        }
+        return limit > position;
+    }
+
+    private static boolean isWhitespace(byte ch) {
+        return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\r';
+    }
+}
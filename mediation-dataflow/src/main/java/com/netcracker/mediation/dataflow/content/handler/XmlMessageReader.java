@@ -0,0 +1,72 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Converts the XML messages that follow each other on one stream, like a socket or a log file, one at a time.
+ * Messages are split by a delimiter or, without one, after every root element. All the messages are parsed by
+ * one pair of a reader and a handler taken from the {@link SaxJsonConverter}, so the parser is set up once per
+ * stream and not per message; the pair goes back to the pool when the stream ends or the reader is closed.
+ * A message that fails is skipped, and the next one is parsed by a new pair. Not thread safe.
+ */
+public class XmlMessageReader implements Closeable {
+
+    private final SaxJsonConverter converter;
+    private final InputStream in;
+    private final XmlMessageInputStream messages;
+    private SaxJsonConverter.Parser parser;
+    private long count;
+
+    XmlMessageReader(SaxJsonConverter converter, InputStream in, byte[] delimiter) {
+        this.converter = converter;
+        this.in = in;
+        this.messages = new XmlMessageInputStream(in, delimiter);
+    }
+
+    /**
+     * @return the tree of the next message, or {@code null} when the stream has no more
+     */
+    public JsonNode next() throws SAXException, IOException {
+        if (!messages.nextMessage()) {
+            release();
+            return null;
+        }
+
+        if (parser == null) parser = converter.acquire();
+        SaxJsonConverter.Parser current = parser;
+        parser = null;
+        JsonNode tree = current.parse(new InputSource(messages));
+        parser = current;
+        count++;
+        return tree;
+    }
+
+    /**
+     * @return the number of messages converted so far
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gives the pair back to the converter and closes the stream.
+     */
+    @Override
+    public void close() throws IOException {
+        release();
+        in.close();
+    }
+
+    private void release() {
+        if (parser == null) return;
+
+        converter.release(parser);
+        parser = null;
+    }
+}
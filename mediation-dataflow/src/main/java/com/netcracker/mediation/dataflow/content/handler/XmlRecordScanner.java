@@ -0,0 +1,195 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Finds the byte ranges of the records at a path without parsing the document. Comments, CDATA sections,
+ * processing instructions and quoted attribute values are skipped; anything it can't split safely, like a
+ * DOCTYPE that may declare entities, makes {@link #scan} find no records.
+ */
+final class XmlRecordScanner {
+
+    private static final int[] NO_RECORDS = new int[0];
+    private static final byte[] COMMENT_START = ascii("<!--");
+    private static final byte[] COMMENT_END = ascii("-->");
+    private static final byte[] CDATA_START = ascii("<![CDATA[");
+    private static final byte[] CDATA_END = ascii("]]>");
+    private static final byte[] PI_END = ascii("?>");
+    private static final byte[] DECLARATION_START = ascii("<?xml");
+    private static final byte[] ENCODING = ascii("encoding");
+    private static final String ASCII_PROBE = "<?xml version=\"1.0\"?></a:b-c_d.e>&;#[]!'09AZaz \t\r\n";
+
+    private final byte[][] path;
+
+    XmlRecordScanner(String[] recordPath, Charset charset) {
+        this.path = new byte[recordPath.length][];
+        for (int index = 0; index < recordPath.length; index++) {
+            path[index] = recordPath[index].getBytes(charset);
+        }
+    }
+
+    /**
+     * @return start and end offsets of every record, two ints per record; empty when the document can't be split
+     */
+    int[] scan(byte[] content, int from, int to) {
+        int[] bounds = new int[64];
+        int count = 0;
+        int depth = 0;
+        int matched = 0;
+        int recordStart = -1;
+
+        int index = from;
+        while ((index = indexOf(content, (byte) '<', index, to)) >= 0) {
+            if (index + 1 >= to) return NO_RECORDS;
+
+            int tagStart = index;
+            byte next = content[index + 1];
+            if (next == '?') {
+                index = skipPast(content, index + 2, to, PI_END);
+            } else if (next == '!') {
+                if (startsWith(content, index, to, COMMENT_START)) index = skipPast(content, index + 4, to, COMMENT_END);
+                else if (startsWith(content, index, to, CDATA_START)) index = skipPast(content, index + 9, to, CDATA_END);
+                else return NO_RECORDS;
+            } else if (next == '/') {
+                int end = indexOf(content, (byte) '>', index + 2, to);
+                if (end < 0 || --depth < 0) return NO_RECORDS;
+
+                index = end + 1;
+                if (recordStart >= 0 && depth == path.length - 1) {
+                    bounds = add(bounds, count, recordStart, index);
+                    count += 2;
+                    recordStart = -1;
+                }
+                if (matched > depth) matched = depth;
+            } else {
+                int nameEnd = index + 1;
+                while (nameEnd < to && !isNameEnd(content[nameEnd])) nameEnd++;
+                int end = tagEnd(content, nameEnd, to);
+                if (end < 0) return NO_RECORDS;
+
+                boolean isEmpty = content[end - 1] == '/';
+                depth++;
+                if (matched == depth - 1 && depth <= path.length && matches(path[depth - 1], content, index + 1, nameEnd)) {
+                    matched = depth;
+                }
+
+                index = end + 1;
+                if (matched == path.length && depth == path.length) {
+                    if (isEmpty) {
+                        bounds = add(bounds, count, tagStart, index);
+                        count += 2;
+                    } else {
+                        recordStart = tagStart;
+                    }
+                }
+                if (isEmpty) {
+                    depth--;
+                    if (matched > depth) matched = depth;
+                }
+            }
+            if (index < 0) return NO_RECORDS;
+        }
+
+        if (depth != 0 || recordStart >= 0) return NO_RECORDS;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    /**
+     * @return the declared encoding, {@code UTF-8} when none is declared, or {@code null} when the bytes
+     * aren't ASCII compatible and can't be scanned
+     */
+    static String encoding(byte[] content, int from, int to) {
+        if (to - from >= 2 && (content[from] == 0 || content[from + 1] == 0 || (content[from] & 0xFE) == 0xFE)) {
+            return null;
+        }
+        if (to - from >= 3 && (content[from] & 0xFF) == 0xEF && (content[from + 1] & 0xFF) == 0xBB
+                && (content[from + 2] & 0xFF) == 0xBF) {
+            from += 3;
+        }
+        if (!startsWith(content, from, to, DECLARATION_START)) return StandardCharsets.UTF_8.name();
+
+        int end = indexOf(content, PI_END, from, to);
+        int name = indexOf(content, ENCODING, from, end < 0 ? to : end);
+        if (name < 0) return StandardCharsets.UTF_8.name();
+
+        int quote = name + ENCODING.length;
+        while (quote < end && content[quote] != '"' && content[quote] != '\'') quote++;
+        int close = quote < end ? indexOf(content, content[quote], quote + 1, end) : -1;
+        if (close < 0) return null;
+
+        String encoding = new String(content, quote + 1, close - quote - 1, StandardCharsets.US_ASCII);
+        return isAsciiCompatible(encoding) ? encoding : null;
+    }
+
+    private static boolean isAsciiCompatible(String encoding) {
+        try {
+            Charset charset = Charset.forName(encoding);
+            return Arrays.equals(ASCII_PROBE.getBytes(charset), ASCII_PROBE.getBytes(StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static int[] add(int[] bounds, int count, int start, int end) {
+        if (count + 2 > bounds.length) bounds = Arrays.copyOf(bounds, bounds.length * 2);
+        bounds[count] = start;
+        bounds[count + 1] = end;
+        return bounds;
+    }
+
+    private static boolean isNameEnd(byte ch) {
+        return ch == '>' || ch == '/' || ch == ' ' || ch == '\t' || ch == '\n' || ch == '\r';
+    }
+
+    private static int tagEnd(byte[] content, int from, int to) {
+        byte quote = 0;
+        for (int index = from; index < to; index++) {
+            byte ch = content[index];
+            if (quote != 0) {
+                if (ch == quote) quote = 0;
+            } else if (ch == '"' || ch == '\'') {
+                quote = ch;
+            } else if (ch == '>') {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matches(byte[] name, byte[] content, int from, int to) {
+        if (to - from != name.length) return false;
+        for (int index = 0; index < name.length; index++) {
+            if (content[from + index] != name[index]) return false;
+        }
+        return true;
+    }
+
+    private static boolean startsWith(byte[] content, int from, int to, byte[] prefix) {
+        return to - from >= prefix.length && matches(prefix, content, from, from + prefix.length);
+    }
+
+    private static int skipPast(byte[] content, int from, int to, byte[] terminator) {
+        int index = indexOf(content, terminator, from, to);
+        return index < 0 ? -1 : index + terminator.length;
+    }
+
+    private static int indexOf(byte[] content, byte ch, int from, int to) {
+        for (int index = from; index < to; index++) {
+            if (content[index] == ch) return index;
+        }
+        return -1;
+    }
+
+    private static int indexOf(byte[] content, byte[] target, int from, int to) {
+        for (int index = indexOf(content, target[0], from, to); index >= 0; index = indexOf(content, target[0], index + 1, to)) {
+            if (startsWith(content, index, to, target)) return index;
+        }
+        return -1;
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,196 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Converts a document straight to UTF-8 JSON bytes, or to Smile or CBOR with {@link #setOutputFormat}. The output
+ * is written by a {@link JsonGenerator} through its recycled buffers, without a JSON string or byte array of the
+ * whole document in between. By default the tree is
+ * built by {@link SaxJsonContentHandler} and then written; in streaming mode {@link SaxJsonStreamingHandler}
+ * writes it as the elements close. The target is flushed but never closed. Files are read through
+ * {@link MappedXmlParser} when it can read them.
+ */
+public class XmlToJsonConverter {
+
+    private static final SAXParserFactory PARSER_FACTORY = SAXParserFactory.newInstance();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final ElementValueHolderFactory elementValueFactory;
+    private OutputFormat outputFormat = OutputFormat.JSON;
+    private boolean isPrettyPrint;
+    private boolean isStreaming;
+    private int windowSize = MappedXmlParser.DEFAULT_WINDOW_SIZE;
+
+    public XmlToJsonConverter() {
+        this(new ElementValueHolderFactory());
+    }
+
+    public XmlToJsonConverter(ElementValueHolderFactory elementValueFactory) {
+        this.elementValueFactory = elementValueFactory;
+    }
+
+    public void convert(InputStream in, OutputStream out) throws SAXException, IOException {
+        convert(new InputSource(in), out);
+    }
+
+    public void convert(Reader in, OutputStream out) throws SAXException, IOException {
+        convert(new InputSource(in), out);
+    }
+
+    /**
+     * Reads the file through mapped windows of {@link #getWindowSize()} bytes instead of a stream. Files the mapped
+     * parser can't read, in an encoding other than UTF-8 or US-ASCII or with a DOCTYPE that has an internal subset,
+     * are read as a stream.
+     */
+    public void convert(Path in, OutputStream out) throws SAXException, IOException {
+        if (!MappedXmlParser.canParse(in)) {
+            try (InputStream stream = Files.newInputStream(in)) {
+                InputSource source = new InputSource(stream);
+                source.setSystemId(in.toUri().toString());
+                convert(source, out);
+            }
+            return;
+        }
+
+        MappedXmlParser parser = new MappedXmlParser(windowSize);
+        convert(handler -> parser.parse(in, handler), out);
+    }
+
+    public void convert(InputStream in, WritableByteChannel out) throws SAXException, IOException {
+        convert(in, Channels.newOutputStream(out));
+    }
+
+    public void convert(Reader in, WritableByteChannel out) throws SAXException, IOException {
+        convert(in, Channels.newOutputStream(out));
+    }
+
+    public void convert(Path in, WritableByteChannel out) throws SAXException, IOException {
+        convert(in, Channels.newOutputStream(out));
+    }
+
+    /**
+     * Replaces the output file if it exists.
+     */
+    public void convert(Path in, Path out) throws SAXException, IOException {
+        try (FileChannel channel = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            convert(in, channel);
+        }
+    }
+
+    public void convert(InputSource source, OutputStream out) throws SAXException, IOException {
+        convert(handler -> parse(source, handler), out);
+    }
+
+    public ElementValueHolderFactory getElementValueFactory() {
+        return elementValueFactory;
+    }
+
+    public OutputFormat getOutputFormat() {
+        return outputFormat;
+    }
+
+    public XmlToJsonConverter setOutputFormat(OutputFormat outputFormat) {
+        this.outputFormat = outputFormat;
+        return this;
+    }
+
+    public boolean isPrettyPrint() {
+        return isPrettyPrint;
+    }
+
+    /**
+     * @param prettyPrint indent the {@link OutputFormat#JSON} output
+     */
+    public XmlToJsonConverter setPrettyPrint(boolean prettyPrint) {
+        isPrettyPrint = prettyPrint;
+        return this;
+    }
+
+    public boolean isStreaming() {
+        return isStreaming;
+    }
+
+    /**
+     * @param streaming write the JSON as the elements close instead of building the tree first
+     */
+    public XmlToJsonConverter setStreaming(boolean streaming) {
+        isStreaming = streaming;
+        return this;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * @param windowSize bytes of a file mapped at a time
+     */
+    public XmlToJsonConverter setWindowSize(int windowSize) {
+        if (windowSize < 1) throw new IllegalArgumentException("Wrong window size: " + windowSize);
+        this.windowSize = windowSize;
+        return this;
+    }
+
+    private void convert(Parser parser, OutputStream out) throws SAXException, IOException {
+        try (JsonGenerator generator = outputFormat.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            if (isPrettyPrint && outputFormat == OutputFormat.JSON) generator.useDefaultPrettyPrinter();
+
+            if (isStreaming) {
+                parser.parse(new SaxJsonStreamingHandler(generator, elementValueFactory));
+                return;
+            }
+
+            SaxJsonContentHandler handler = new SaxJsonContentHandler(elementValueFactory);
+            parser.parse(handler);
+
+            ConversionListener conversionListener = elementValueFactory.getConversionListener();
+            if (conversionListener == null) {
+                MAPPER.writeTree(generator, handler.getTree());
+                return;
+            }
+
+            long start = System.nanoTime();
+            MAPPER.writeTree(generator, handler.getTree());
+            generator.flush();
+            conversionListener.onPhase(ConversionListener.Phase.SERIALIZE, System.nanoTime() - start);
+        }
+    }
+
+    private static void parse(InputSource source, ContentHandler handler) throws SAXException, IOException {
+        XMLReader xmlReader;
+        try {
+            synchronized (PARSER_FACTORY) {
+                xmlReader = PARSER_FACTORY.newSAXParser().getXMLReader();
+            }
+        } catch (ParserConfigurationException e) {
+            throw new SAXException(e);
+        }
+        xmlReader.setContentHandler(handler);
+        xmlReader.parse(source);
+    }
+
+    private interface Parser {
+
+        void parse(ContentHandler handler) throws SAXException, IOException;
+    }
+}
@@ -0,0 +1,271 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Converts documents asynchronously with the pooled pairs of a {@link SaxJsonConverter}. The service takes at
+ * most {@code maxTasks} documents and {@code maxBytes} bytes of XML at a time; {@link #convert(byte[])} waits for
+ * room and {@link #tryConvert} gives up after a timeout, so callers are slowed down instead of queueing without
+ * bound. A document bigger than {@code maxBytes} takes all of them. By default the conversions run on virtual
+ * threads when the JVM has them, on {@code maxTasks} platform threads otherwise.
+ */
+public class XmlToJsonService implements Closeable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final SaxJsonConverter converter;
+    private final Executor executor;
+    private final ExecutorService ownExecutor;
+    private final boolean isVirtualThreads;
+    private final int maxTasks;
+    private final int maxBytes;
+    private final Semaphore tasks;
+    private final Semaphore bytes;
+    private OutputFormat outputFormat = OutputFormat.JSON;
+
+    public XmlToJsonService(int maxTasks, int maxBytes) {
+        this(new ElementValueHolderFactory(), maxTasks, maxBytes);
+    }
+
+    public XmlToJsonService(ElementValueHolderFactory elementValueFactory, int maxTasks, int maxBytes) {
+        this(elementValueFactory, maxTasks, maxBytes, null);
+    }
+
+    /**
+     * @param maxTasks documents taken at a time, waiting or converting
+     * @param maxBytes bytes of XML taken at a time
+     * @param executor runs the conversions and isn't shut down by {@link #close()}; {@code null} for threads of
+     *                 the service
+     */
+    public XmlToJsonService(ElementValueHolderFactory elementValueFactory, int maxTasks, int maxBytes,
+                            Executor executor) {
+        if (maxTasks < 1) throw new IllegalArgumentException("Wrong max tasks: " + maxTasks);
+        if (maxBytes < 1) throw new IllegalArgumentException("Wrong max bytes: " + maxBytes);
+
+        this.converter = new SaxJsonConverter(elementValueFactory, maxTasks);
+        this.maxTasks = maxTasks;
+        this.maxBytes = maxBytes;
+        this.tasks = new Semaphore(maxTasks, true);
+        this.bytes = new Semaphore(maxBytes, true);
+
+        if (executor != null) {
+            this.ownExecutor = null;
+            this.executor = executor;
+            this.isVirtualThreads = false;
+        } else {
+            ExecutorService virtualThreads = newVirtualThreadExecutor();
+            this.isVirtualThreads = virtualThreads != null;
+            this.ownExecutor = isVirtualThreads ? virtualThreads : Executors.newFixedThreadPool(maxTasks, new Threads());
+            this.executor = ownExecutor;
+        }
+    }
+
+    /**
+     * Waits until the service has room for the document.
+     */
+    public CompletableFuture<JsonNode> convert(byte[] content) throws InterruptedException {
+        int weight = weight(content);
+        acquire(weight);
+        return submit(() -> converter.convert(source(content)), weight);
+    }
+
+    /**
+     * Waits until the service has room for the document, then writes its JSON in the {@link #getOutputFormat()}
+     * to the stream. The stream is flushed but not closed.
+     */
+    public CompletableFuture<Void> convert(byte[] content, OutputStream out) throws InterruptedException {
+        int weight = weight(content);
+        acquire(weight);
+        return submit(() -> write(converter.convert(source(content)), out), weight);
+    }
+
+    /**
+     * @return the result, or {@code null} when the service had no room for the document in time
+     */
+    public CompletableFuture<JsonNode> tryConvert(byte[] content, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        int weight = weight(content);
+        if (!tryAcquire(weight, timeout, unit)) return null;
+        return submit(() -> converter.convert(source(content)), weight);
+    }
+
+    /**
+     * @return the result, or {@code null} when the service had no room for the document in time
+     */
+    public CompletableFuture<Void> tryConvert(byte[] content, OutputStream out, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        int weight = weight(content);
+        if (!tryAcquire(weight, timeout, unit)) return null;
+        return submit(() -> write(converter.convert(source(content)), out), weight);
+    }
+
+    public ElementValueHolderFactory getElementValueFactory() {
+        return converter.getElementValueFactory();
+    }
+
+    public OutputFormat getOutputFormat() {
+        return outputFormat;
+    }
+
+    public XmlToJsonService setOutputFormat(OutputFormat outputFormat) {
+        this.outputFormat = outputFormat;
+        return this;
+    }
+
+    public int getMaxTasks() {
+        return maxTasks;
+    }
+
+    public int getMaxBytes() {
+        return maxBytes;
+    }
+
+    public int getTaskCount() {
+        return maxTasks - tasks.availablePermits();
+    }
+
+    public int getByteCount() {
+        return maxBytes - bytes.availablePermits();
+    }
+
+    public boolean isVirtualThreads() {
+        return isVirtualThreads;
+    }
+
+    /**
+     * Stops taking documents and waits for the ones taken. A given executor is left running.
+     */
+    @Override
+    public void close() {
+        if (ownExecutor == null) return;
+
+        ownExecutor.shutdown();
+        try {
+            while (!ownExecutor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // the documents taken are still converting
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int weight(byte[] content) {
+        return Math.min(content.length, maxBytes);
+    }
+
+    private void acquire(int weight) throws InterruptedException {
+        tasks.acquire();
+        try {
+            bytes.acquire(weight);
+        } catch (InterruptedException e) {
+            tasks.release();
+            throw e;
+        }
+    }
+
+    private boolean tryAcquire(int weight, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (!tasks.tryAcquire(timeout, unit)) return false;
+
+        boolean isAcquired = false;
+        try {
+            isAcquired = bytes.tryAcquire(weight, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } finally {
+            if (!isAcquired) tasks.release();
+        }
+        return isAcquired;
+    }
+
+    private void release(int weight) {
+        bytes.release(weight);
+        tasks.release();
+    }
+
+    /**
+     * Runs the conversion; the room it takes is given back before the result is completed, so the callbacks
+     * of the result can submit the next document without waiting.
+     */
+    private <T> CompletableFuture<T> submit(Conversion<T> conversion, int weight) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable task = () -> {
+            T value = null;
+            Throwable failure = null;
+            try {
+                value = conversion.convert();
+            } catch (SAXException | IOException | RuntimeException | Error e) {
+                failure = e;
+            } finally {
+                release(weight);
+            }
+
+            if (failure == null) result.complete(value);
+            else result.completeExceptionally(failure);
+        };
+
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            release(weight);
+            throw e;
+        }
+        return result;
+    }
+
+    private Void write(JsonNode tree, OutputStream out) throws IOException {
+        try (JsonGenerator generator = outputFormat.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            MAPPER.writeTree(generator, tree);
+        }
+        return null;
+    }
+
+    private static InputSource source(byte[] content) {
+        return new InputSource(new ByteArrayInputStream(content));
+    }
+
+    /**
+     * @return an executor starting a virtual thread per task, or {@code null} when the JVM has none
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private interface Conversion<T> {
+
+        T convert() throws SAXException, IOException;
+    }
+
+    private static final class Threads implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "xml-to-json-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
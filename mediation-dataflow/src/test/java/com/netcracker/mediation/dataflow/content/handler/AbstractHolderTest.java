@@ -0,0 +1,57 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.StringReader;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public abstract class AbstractHolderTest {
+
+    public Attributes getMockedAttributes() {
+        Attributes mock = mock(Attributes.class);
+        when(mock.getLength()).thenReturn(3);
+        when(mock.getQName(0)).thenReturn("int");
+        when(mock.getQName(1)).thenReturn("bool");
+        when(mock.getQName(2)).thenReturn("str");
+
+        when(mock.getValue(0)).thenReturn("1");
+        when(mock.getValue(1)).thenReturn("true");
+        when(mock.getValue(2)).thenReturn("hello");
+
+        return mock;
+    }
+
+    /**
+     * @return the tree {@link SaxJsonContentHandler} builds of the document
+     */
+    protected static JsonNode tree(ElementValueHolderFactory factory, InputSource source) throws Exception {
+        SaxJsonContentHandler handler = new SaxJsonContentHandler(factory);
+        parse(handler, source);
+        return handler.getTree();
+    }
+
+    protected static JsonNode tree(ElementValueHolderFactory factory, String xml) throws Exception {
+        return tree(factory, source(xml));
+    }
+
+    protected static void parse(ContentHandler handler, InputSource source) throws Exception {
+        XMLReader reader = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
+        reader.setContentHandler(handler);
+        reader.parse(source);
+    }
+
+    protected static void parse(ContentHandler handler, String xml) throws Exception {
+        parse(handler, source(xml));
+    }
+
+    protected static InputSource source(String xml) {
+        return new InputSource(new StringReader(xml));
+    }
+}
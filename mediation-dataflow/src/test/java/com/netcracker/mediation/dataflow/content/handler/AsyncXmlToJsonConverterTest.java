@@ -0,0 +1,150 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLStreamException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AsyncXmlToJsonConverterTest {
+
+    @Test
+    public void whenFedByteByByteThenMatchSax() throws Exception {
+        String file = "src/test/resources/arrayAnagrafica.xml";
+        ElementValueHolderFactory factory = new ElementValueHolderFactory().setConvertToJsonPrimitives(true);
+        byte[] content = Files.readAllBytes(Paths.get(file));
+
+        AsyncXmlToJsonConverter converter = new AsyncXmlToJsonConverter(factory);
+        boolean complete = false;
+        for (int index = 0; index < content.length && !complete; index++) {
+            complete = converter.feed(content, index, 1);
+        }
+
+        assertTrue(complete);
+        assertEquals(parseWithSax(file, factory).toString(), converter.getTree().toString());
+    }
+
+    @Test
+    public void whenFedWithDirectBuffersThenMatchSax() throws Exception {
+        String file = "src/test/resources/nestedNode.xml";
+        ElementValueHolderFactory factory = new ElementValueHolderFactory().setUsePrefixForAttributes(true);
+        byte[] content = Files.readAllBytes(Paths.get(file));
+
+        AsyncXmlToJsonConverter converter = new AsyncXmlToJsonConverter(factory);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+        for (int offset = 0; offset < content.length; offset += buffer.capacity()) {
+            buffer.clear();
+            buffer.put(content, offset, Math.min(buffer.capacity(), content.length - offset)).flip();
+            converter.feed(buffer);
+            assertFalse(buffer.hasRemaining());
+        }
+
+        assertTrue(converter.endOfInput());
+        assertEquals(parseWithSax(file, factory).toString(), converter.getTree().toString());
+    }
+
+    @Test
+    public void whenRecordEndsThenDeliverItBeforeDocumentEnds() throws Exception {
+        final List<JsonNode> records = new ArrayList<>();
+        AsyncXmlToJsonConverter converter = new AsyncXmlToJsonConverter().setRecordListener("/CATALOG/CD", new RecordListener() {
+            @Override
+            public void onRecord(JsonNode record, JsonNode envelope) {
+                records.add(record);
+            }
+        });
+
+        assertFalse(converter.feed(bytes("<CATALOG><CD><TITLE>Red</TITLE></CD><CD><TIT")));
+        assertEquals(1, records.size());
+        assertEquals("Red", records.get(0).get("TITLE").textValue());
+        assertNull(converter.getTree());
+
+        assertTrue(converter.feed(bytes("LE>Blue</TITLE></CD></CATALOG>")));
+        assertEquals(2, records.size());
+        assertEquals("Blue", records.get(1).get("TITLE").textValue());
+    }
+
+    @Test
+    public void whenResetThenConvertNextDocument() throws Exception {
+        AsyncXmlToJsonConverter converter = new AsyncXmlToJsonConverter();
+        assertTrue(converter.feed(bytes("<a>1</a>")));
+        assertEquals("1", converter.getTree().get("a").textValue());
+
+        assertTrue(converter.reset().feed(bytes("<b>2</b>")));
+        assertEquals("2", converter.getTree().get("b").textValue());
+    }
+
+    @Test
+    public void whenChunkHoldsNextDocumentThenKeepItForReset() throws Exception {
+        AsyncXmlToJsonConverter converter = new AsyncXmlToJsonConverter();
+        assertTrue(converter.feed(bytes("<a>1</a>\n<?xml version=\"1.0\"?><b>2</b><c>3</c><d>")));
+        assertEquals("{\"a\":\"1\"}", converter.getTree().toString());
+        assertEquals(40, converter.getRemaining());
+
+        assertTrue(converter.reset().feed(new byte[0]));
+        assertEquals("{\"b\":\"2\"}", converter.getTree().toString());
+        assertTrue(converter.reset().feed(new byte[0]));
+        assertEquals("{\"c\":\"3\"}", converter.getTree().toString());
+        assertFalse(converter.reset().feed(new byte[0]));
+        assertEquals(0, converter.getRemaining());
+
+        assertTrue(converter.feed(bytes("4</d><e/>")));
+        assertEquals("{\"d\":\"4\"}", converter.getTree().toString());
+        assertTrue(converter.reset().endOfInput());
+        assertEquals("{\"e\":null}", converter.getTree().toString());
+    }
+
+    @Test
+    public void whenDocumentsAreSplitAnywhereThenConvertEach() throws Exception {
+        byte[] content = bytes("<a><b>1</b></a><a><b>2</b></a>\r\n<a><b>3</b></a>");
+
+        for (int chunk = 1; chunk <= content.length; chunk++) {
+            List<String> trees = new ArrayList<>();
+            AsyncXmlToJsonConverter converter = new AsyncXmlToJsonConverter();
+            for (int offset = 0; offset < content.length; offset += chunk) {
+                boolean complete = converter.feed(content, offset, Math.min(chunk, content.length - offset));
+                while (complete) {
+                    trees.add(converter.getTree().toString());
+                    complete = converter.reset().feed(new byte[0]);
+                }
+            }
+
+            assertEquals(String.valueOf(chunk), "[{\"a\":{\"b\":\"1\"}}, {\"a\":{\"b\":\"2\"}}, {\"a\":{\"b\":\"3\"}}]",
+                    trees.toString());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void whenFedAfterCompleteThenFail() throws Exception {
+        AsyncXmlToJsonConverter converter = new AsyncXmlToJsonConverter();
+        converter.feed(bytes("<a>1</a>"));
+        converter.feed(bytes("<b/>"));
+    }
+
+    @Test(expected = XMLStreamException.class)
+    public void whenInputEndsInsideDocumentThenFail() throws Exception {
+        AsyncXmlToJsonConverter converter = new AsyncXmlToJsonConverter();
+        converter.feed(bytes("<a><b>1</b>"));
+        converter.endOfInput();
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static JsonNode parseWithSax(String file, ElementValueHolderFactory factory) throws Exception {
+        SaxJsonContentHandler handler = new SaxJsonContentHandler(factory);
+        XMLReader xmlReader = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
+        xmlReader.setContentHandler(handler);
+        xmlReader.parse(file);
+        return handler.getTree();
+    }
+}
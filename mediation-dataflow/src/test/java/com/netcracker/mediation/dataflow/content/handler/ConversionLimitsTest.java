@@ -0,0 +1,151 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+public class ConversionLimitsTest extends AbstractHolderTest {
+
+    private static final String XML = "<a><b><c>12345</c></b><d>1</d><d>2</d><d>3</d></a>";
+
+    @Test
+    public void whenWithinLimitsThenConvert() throws Exception {
+        ConversionLimits limits = new ConversionLimits()
+                .setMaxDepth(3)
+                .setMaxElements(6)
+                .setMaxTextLength(5)
+                .setMaxArrayLength(3);
+
+        assertEquals("{\"a\":{\"b\":{\"c\":\"12345\"},\"d\":[\"1\",\"2\",\"3\"]}}", convert(limits).toString());
+    }
+
+    @Test
+    public void whenTooDeepThenReportPath() throws Exception {
+        ConversionLimitException e = convertFailing(new ConversionLimits().setMaxDepth(2));
+
+        assertEquals(ConversionLimits.Limit.DEPTH, e.getLimit());
+        assertEquals(2, e.getMaxValue());
+        assertEquals("/a/b/c", e.getPath());
+        assertEquals(3, e.getValue());
+        assertEquals("Element depth 3 exceeds limit 2 at /a/b/c", e.getMessage());
+    }
+
+    @Test
+    public void whenTooManyElementsThenFail() throws Exception {
+        ConversionLimitException e = convertFailing(new ConversionLimits().setMaxElements(5));
+
+        assertEquals(ConversionLimits.Limit.ELEMENTS, e.getLimit());
+        assertEquals("/a/d", e.getPath());
+        assertEquals("Element count 6 exceeds limit 5 at /a/d", e.getMessage());
+    }
+
+    @Test
+    public void whenTextTooLongThenFail() throws Exception {
+        ConversionLimitException e = convertFailing(new ConversionLimits().setMaxTextLength(4));
+
+        assertEquals(ConversionLimits.Limit.TEXT_LENGTH, e.getLimit());
+        assertEquals("/a/b/c", e.getPath());
+    }
+
+    @Test
+    public void whenArrayTooLongThenFail() throws Exception {
+        ConversionLimitException e = convertFailing(new ConversionLimits().setMaxArrayLength(2));
+
+        assertEquals(ConversionLimits.Limit.ARRAY_LENGTH, e.getLimit());
+        assertEquals("/a/d", e.getPath());
+    }
+
+    @Test
+    public void whenStreamingArrayTooLongThenFail() throws Exception {
+        for (int bufferLimit : new int[]{1024, 1}) {
+            ElementValueHolderFactory factory = new ElementValueHolderFactory()
+                    .setLimits(new ConversionLimits().setMaxArrayLength(2));
+            try {
+                parse(new SaxJsonStreamingHandler(new JsonFactory().createGenerator(new StringWriter()), factory)
+                        .setBufferLimit(bufferLimit), XML);
+                fail();
+            } catch (ConversionLimitException e) {
+                assertEquals(ConversionLimits.Limit.ARRAY_LENGTH, e.getLimit());
+                assertEquals(3, e.getValue());
+                assertEquals("/a/d", e.getPath());
+            }
+        }
+    }
+
+    @Test
+    public void whenProjectedOutThenNotCounted() throws Exception {
+        ElementValueHolderFactory factory = new ElementValueHolderFactory()
+                .setLimits(new ConversionLimits().setMaxDepth(2).setMaxTextLength(1))
+                .setProjection(new Projection().exclude("/a/b"));
+
+        SaxJsonContentHandler handler = new SaxJsonContentHandler(factory);
+        parse(handler, XML);
+        assertEquals("{\"a\":{\"d\":[\"1\",\"2\",\"3\"]}}", handler.getTree().toString());
+    }
+
+    @Test
+    public void whenStreamingThenCheckDepthAndText() throws Exception {
+        for (ConversionLimits limits : new ConversionLimits[]{
+                new ConversionLimits().setMaxDepth(2), new ConversionLimits().setMaxTextLength(4)}) {
+            ElementValueHolderFactory factory = new ElementValueHolderFactory().setLimits(limits);
+            try {
+                parse(new SaxJsonStreamingHandler(new JsonFactory().createGenerator(new StringWriter()), factory), XML);
+                fail();
+            } catch (ConversionLimitException e) {
+                assertEquals("/a/b/c", e.getPath());
+            }
+        }
+    }
+
+    @Test
+    public void whenTapeThenCheckDepthElementsAndText() throws Exception {
+        ConversionLimits[] limits = {new ConversionLimits().setMaxDepth(2),
+                new ConversionLimits().setMaxElements(5), new ConversionLimits().setMaxTextLength(4)};
+        String[] paths = {"/a/b/c", "/a/d", "/a/b/c"};
+        for (int index = 0; index < limits.length; index++) {
+            try {
+                parse(new SaxJsonTapeHandler(new ElementValueHolderFactory().setLimits(limits[index])), XML);
+                fail();
+            } catch (ConversionLimitException e) {
+                assertEquals(paths[index], e.getPath());
+            }
+        }
+
+        SaxJsonTapeHandler handler = new SaxJsonTapeHandler(new ElementValueHolderFactory().setLimits(
+                new ConversionLimits().setMaxDepth(3).setMaxElements(6).setMaxTextLength(5)));
+        parse(handler, XML);
+        assertEquals("{\"a\":{\"b\":{\"c\":\"12345\"},\"d\":[\"1\",\"2\",\"3\"]}}", handler.getTape().toString());
+    }
+
+    @Test
+    public void whenStaxThenCauseIsLimitException() throws Exception {
+        ElementValueHolderFactory factory = new ElementValueHolderFactory()
+                .setLimits(new ConversionLimits().setMaxElements(2));
+        try {
+            new StaxJsonConverter(factory).convert(XMLInputFactory.newFactory().createXMLStreamReader(new StringReader(XML)));
+            fail();
+        } catch (XMLStreamException e) {
+            assertEquals(ConversionLimits.Limit.ELEMENTS, ((ConversionLimitException) e.getNestedException()).getLimit());
+        }
+    }
+
+    private static ConversionLimitException convertFailing(ConversionLimits limits) throws Exception {
+        try {
+            convert(limits);
+        } catch (ConversionLimitException e) {
+            return e;
+        }
+        throw new AssertionError("The limits are not reached");
+    }
+
+    private static JsonNode convert(ConversionLimits limits) throws Exception {
+        return tree(new ElementValueHolderFactory().setLimits(limits), XML);
+    }
+}
@@ -0,0 +1,120 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.netcracker.mediation.dataflow.content.handler.ConversionListener.Phase;
+import com.netcracker.mediation.dataflow.content.handler.ConversionMetrics.ValueType;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class ConversionMetricsTest extends AbstractHolderTest {
+
+    private static final String XML = "<a id=\"1\"><b>12</b><b>true</b><c><d x=\"y\" z=\"3000000000\">1.5</d></c>"
+            + "<e>12345678901234567890</e><f>text</f></a>";
+
+    private final ConversionMetrics metrics = new ConversionMetrics();
+    private final ElementValueHolderFactory factory = new ElementValueHolderFactory()
+            .setConvertToJsonPrimitives(true)
+            .setConversionListener(metrics);
+
+    @Test
+    public void whenConvertedThenCountElementsAndValues() throws Exception {
+        new SaxJsonConverter(factory, 1).convert(new InputSource(new StringReader(XML)));
+
+        assertEquals(7, metrics.getElements());
+        assertEquals(3, metrics.getAttributes());
+        assertEquals(3, metrics.getMaxDepth());
+        assertEquals("121.5true12345678901234567890text".length(), metrics.getTextLength());
+        assertEquals(2, metrics.getValues(ValueType.INT));
+        assertEquals(1, metrics.getValues(ValueType.LONG));
+        assertEquals(1, metrics.getValues(ValueType.BIG_INTEGER));
+        assertEquals(1, metrics.getValues(ValueType.DOUBLE));
+        assertEquals(1, metrics.getValues(ValueType.BOOLEAN));
+        assertEquals(2, metrics.getValues(ValueType.TEXT));
+        assertEquals(0, metrics.getValues(ValueType.BIG_DECIMAL));
+        assertEquals(1, metrics.getPhaseCount(Phase.PARSE));
+        assertEquals(1, metrics.getPhaseCount(Phase.BUILD));
+        assertEquals(0, metrics.getPhaseCount(Phase.SERIALIZE));
+        assertTrue(metrics.getPhaseNanos(Phase.PARSE) > 0);
+    }
+
+    @Test
+    public void whenWrittenThenTimeSerialize() throws Exception {
+        new XmlToJsonConverter(factory).convert(new StringReader(XML), new ByteArrayOutputStream());
+
+        assertEquals(1, metrics.getPhaseCount(Phase.PARSE));
+        assertEquals(1, metrics.getPhaseCount(Phase.SERIALIZE));
+        assertTrue(metrics.getPhaseNanos(Phase.SERIALIZE) > 0);
+    }
+
+    @Test
+    public void whenStreamedThenCountAsForTree() throws Exception {
+        new XmlToJsonConverter(factory).setStreaming(true).convert(new StringReader(XML), new ByteArrayOutputStream());
+
+        assertEquals(7, metrics.getElements());
+        assertEquals(3, metrics.getAttributes());
+        assertEquals(3, metrics.getMaxDepth());
+        assertEquals("121.5true12345678901234567890text".length(), metrics.getTextLength());
+        assertEquals(2, metrics.getValues(ValueType.INT));
+        assertEquals(1, metrics.getValues(ValueType.LONG));
+        assertEquals(1, metrics.getValues(ValueType.BIG_INTEGER));
+        assertEquals(1, metrics.getValues(ValueType.DOUBLE));
+        assertEquals(1, metrics.getValues(ValueType.BOOLEAN));
+        assertEquals(2, metrics.getValues(ValueType.TEXT));
+        assertEquals(1, metrics.getPhaseCount(Phase.PARSE));
+        assertEquals(0, metrics.getPhaseCount(Phase.BUILD));
+        assertEquals(1, metrics.getPhaseCount(Phase.SERIALIZE));
+        assertTrue(metrics.getPhaseNanos(Phase.SERIALIZE) > 0);
+    }
+
+    @Test
+    public void whenRecordedOnTapeThenCountElementsAndText() throws Exception {
+        parse(new SaxJsonTapeHandler(factory), XML);
+
+        assertEquals(7, metrics.getElements());
+        assertEquals(3, metrics.getAttributes());
+        assertEquals(3, metrics.getMaxDepth());
+        assertEquals("121.5true12345678901234567890text".length(), metrics.getTextLength());
+        assertEquals(0, metrics.getValues(ValueType.INT));
+        assertEquals(1, metrics.getPhaseCount(Phase.PARSE));
+        assertEquals(0, metrics.getPhaseCount(Phase.BUILD));
+    }
+
+    @Test
+    public void whenThreadsShareMetricsThenSumAll() throws Exception {
+        SaxJsonConverter converter = new SaxJsonConverter(factory, 4);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int index = 0; index < 100; index++) {
+                futures.add(executor.submit(() -> converter.convert(new InputSource(new StringReader(XML)))));
+            }
+            for (Future<?> future : futures) future.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(700, metrics.getElements());
+        assertEquals(100, metrics.getPhaseCount(Phase.PARSE));
+        assertEquals(3, metrics.getMaxDepth());
+    }
+
+    @Test
+    public void whenResetThenStartFromZero() throws Exception {
+        new SaxJsonConverter(factory, 1).convert(new InputSource(new StringReader(XML)));
+        metrics.reset();
+
+        assertEquals(0, metrics.getElements());
+        assertEquals(0, metrics.getMaxDepth());
+        assertEquals(0, metrics.getValues(ValueType.INT));
+        assertEquals(0, metrics.getPhaseNanos(Phase.PARSE));
+    }
+}
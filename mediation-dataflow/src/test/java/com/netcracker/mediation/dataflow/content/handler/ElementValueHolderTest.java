@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.*;
 import org.junit.Test;
 import org.xml.sax.Attributes;
+import org.xml.sax.helpers.AttributesImpl;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -310,4 +311,69 @@ public class ElementValueHolderTest extends AbstractHolderTest {
 
         assertEquals(BigDecimal.valueOf(12345.6), result.get("value").decimalValue());
     }
+
+    @Test
+    public void whenValueIsAppendedInChunksThenTrimOnlyEnds() throws Exception {
+        ElementValueHolder elementValueHolder = new ElementValueHolder(
+                "element",
+                mock(Attributes.class),
+                "text",
+                false,
+                false,
+                "@"
+        );
+
+        for (String chunk : new String[]{"\n    ", "  many", " ", "chunks  ", "\n"}) {
+            elementValueHolder.appendValue(chunk.toCharArray(), 0, chunk.length());
+        }
+
+        assertEquals("many chunks", elementValueHolder.getValue());
+        assertSame(elementValueHolder.getValue(), elementValueHolder.buildNode().textValue());
+    }
+
+    @Test
+    public void whenResetThenHolderIsReadyForAnotherElement() throws Exception {
+        ElementValueHolderFactory holderFactory = new ElementValueHolderFactory();
+        ElementValueHolder elementValueHolder = holderFactory.newInstance("first", new ElementAttributes());
+        elementValueHolder.addChild("child", factory.numberNode(1));
+        JsonNode first = elementValueHolder.buildNode();
+
+        holderFactory.setConvertToJsonPrimitives(true);
+        elementValueHolder.reset("second", new ElementAttributes());
+        elementValueHolder.setValue("2");
+
+        assertEquals("second", elementValueHolder.getName());
+        assertFalse(elementValueHolder.hasChildren());
+        assertEquals(IntNode.valueOf(2), elementValueHolder.buildNode());
+        assertEquals(1, first.get("child").intValue());
+    }
+
+    @Test
+    public void whenBuiltTwiceThenReturnSameNode() throws Exception {
+        ElementValueHolder elementValueHolder = new ElementValueHolderFactory()
+                .newInstance("element", new ElementAttributes().copyOf(attributes("id", "x")));
+        elementValueHolder.addChild("c", factory.numberNode(1));
+
+        JsonNode first = elementValueHolder.buildNode();
+        assertSame(first, elementValueHolder.buildNode());
+        assertEquals("{\"c\":1,\"id\":\"x\"}", first.toString());
+    }
+
+    @Test
+    public void whenCopiedThenHolderIsLeftAsItIs() throws Exception {
+        ElementValueHolder elementValueHolder = new ElementValueHolderFactory()
+                .newInstance("element", new ElementAttributes().copyOf(attributes("c", "x")));
+        elementValueHolder.addChild("c", factory.numberNode(1));
+        elementValueHolder.setValue("text");
+
+        assertEquals("{\"c\":[1,\"x\"],\"value\":\"text\"}", elementValueHolder.copyNode().toString());
+        assertEquals("{\"c\":[1,\"x\"],\"value\":\"text\"}", elementValueHolder.copyNode().toString());
+        assertEquals("{\"c\":1}", elementValueHolder.copyChildren().toString());
+    }
+
+    private static Attributes attributes(String name, String value) {
+        AttributesImpl attributes = new AttributesImpl();
+        attributes.addAttribute(null, null, name, "CDATA", value);
+        return attributes;
+    }
 }
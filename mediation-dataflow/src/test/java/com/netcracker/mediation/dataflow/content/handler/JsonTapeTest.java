@@ -0,0 +1,121 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class JsonTapeTest extends AbstractHolderTest {
+
+    private static final String[] RESOURCES = {"arrayAnagrafica.xml", "arrayCd.xml", "nestedNode.xml", "oneNode.xml"};
+
+    private static final String MIXED = "<a x=\"1\"><b>2</b><c/><b y=\"z\">3</b><x>4</x>text<d> </d><x>5</x></a>";
+
+    @Test
+    public void whenResourcesThenSameAsTree() throws Exception {
+        for (ElementValueHolderFactory factory : Arrays.asList(
+                new ElementValueHolderFactory(),
+                new ElementValueHolderFactory().setConvertToJsonPrimitives(true).setUseBigDecimalForFloats(true),
+                new ElementValueHolderFactory().setUsePrefixForAttributes(true).setAttrPrefix("@").setValuePrefix("#"))) {
+            for (String resource : RESOURCES) {
+                InputSource source = new InputSource(getClass().getClassLoader().getResource(resource).toString());
+                JsonTape tape = tape(factory, source);
+                JsonNode tree = tree(factory, new InputSource(source.getSystemId()));
+
+                assertEquals(resource, tree, tape.toJsonNode());
+                assertEquals(resource, tree.toString(), tape.toString());
+            }
+        }
+    }
+
+    @Test
+    public void whenNamesCollideThenGroupLikeTree() throws Exception {
+        ElementValueHolderFactory factory = new ElementValueHolderFactory().setConvertToJsonPrimitives(true);
+        JsonTape tape = tape(factory, source(MIXED));
+
+        assertEquals(tree(factory, source(MIXED)), tape.toJsonNode());
+        assertEquals("{\"a\":{\"b\":[2,{\"value\":3,\"y\":\"z\"}],\"c\":null,\"x\":[4,5,1],\"d\":null,\"value\":\"text\"}}",
+                tape.toString());
+    }
+
+    @Test
+    public void whenNavigateThenReadOnlyTheFields() throws Exception {
+        JsonTape.Node a = tape(new ElementValueHolderFactory(), source(MIXED)).root().get("a");
+
+        assertTrue(a.isObject());
+        assertEquals(Arrays.asList("b", "c", "x", "d", "value"), a.fieldNames());
+        assertEquals(5, a.size());
+
+        JsonTape.Node b = a.get("b");
+        assertTrue(b.isArray());
+        assertEquals(2, b.size());
+        assertEquals("2", b.get(0).textValue());
+        assertEquals("z", b.get(1).get("y").textValue());
+        assertEquals("{\"value\":\"3\",\"y\":\"z\"}", b.get(1).toString());
+        assertNull(b.get(2));
+
+        assertTrue(a.get("c").isNull());
+        assertNull(a.get("c").textValue());
+        assertEquals("1", a.get("x").get(2).textValue());
+        assertTrue(a.get("value").isValue());
+        assertNull(a.get("missing"));
+        assertNull(a.get("value").get("any"));
+    }
+
+    @Test
+    public void whenSerializeNodeThenWriteItsJson() throws Exception {
+        ElementValueHolderFactory factory = new ElementValueHolderFactory().setConvertToJsonPrimitives(true);
+        JsonTape.Node x = tape(factory, source(MIXED)).root().get("a").get("x");
+
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = OutputFormat.JSON.getFactory().createGenerator(writer)) {
+            x.serialize(generator);
+        }
+        assertEquals("[4,5,1]", writer.toString());
+        assertEquals(tree(factory, source(MIXED)).get("a").get("x"), x.toJsonNode());
+    }
+
+    @Test
+    public void whenShapeAndProjectionThenSameAsTree() throws Exception {
+        String xml = "<r><rec><name>A</name><secret>x</secret></rec><meta><count>1</count></meta></r>";
+        ElementValueHolderFactory factory = new ElementValueHolderFactory()
+                .setShapeRegistry(new ShapeRegistry(10, false).declareArray("/r/rec"))
+                .setProjection(new Projection().include("/r/rec/name").exclude("//secret"));
+
+        JsonTape tape = tape(factory, source(xml));
+        assertEquals("{\"r\":{\"rec\":[{\"name\":\"A\"}]}}", tape.toString());
+        assertEquals(tree(factory, source(xml)), tape.toJsonNode());
+    }
+
+    @Test
+    public void whenHandlerReusedThenEarlierTapesStay() throws Exception {
+        SaxJsonTapeHandler handler = new SaxJsonTapeHandler();
+        parse(handler, source("<a><b>first</b></a>"));
+        JsonTape first = handler.getTape();
+        parse(handler, source("<c d=\"e\">second</c>"));
+
+        assertEquals("{\"a\":{\"b\":\"first\"}}", first.toString());
+        assertEquals("{\"c\":{\"value\":\"second\",\"d\":\"e\"}}", handler.getTape().toString());
+    }
+
+    @Test
+    public void whenConvertToTapeThenPairIsKept() throws Exception {
+        SaxJsonConverter converter = new SaxJsonConverter(1);
+
+        assertEquals("{\"a\":\"1\"}", converter.convertToTape(source("<a>1</a>")).toString());
+        assertEquals("{\"b\":\"2\"}", converter.convert(source("<b>2</b>")).toString());
+        assertEquals("{\"c\":\"3\"}", converter.convertToTape(source("<c>3</c>")).toString());
+        assertEquals(1, converter.getIdleCount());
+    }
+
+    private static JsonTape tape(ElementValueHolderFactory factory, InputSource source) throws Exception {
+        SaxJsonTapeHandler handler = new SaxJsonTapeHandler(factory);
+        parse(handler, source);
+        return handler.getTape();
+    }
+}
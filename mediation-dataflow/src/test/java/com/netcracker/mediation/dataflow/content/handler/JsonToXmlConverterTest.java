@@ -0,0 +1,151 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class JsonToXmlConverterTest extends AbstractHolderTest {
+
+    private static final String[] RESOURCES = {"arrayAnagrafica.xml", "arrayCd.xml", "nestedNode.xml", "oneNode.xml"};
+
+    @Test
+    public void whenResourcesThenXmlConvertsToSameTree() throws Exception {
+        for (ElementValueHolderFactory factory : Arrays.asList(
+                new ElementValueHolderFactory(),
+                new ElementValueHolderFactory().setConvertToJsonPrimitives(true),
+                new ElementValueHolderFactory().setUsePrefixForAttributes(true).setAttrPrefix("@").setValuePrefix("#"))) {
+            for (String resource : RESOURCES) {
+                JsonNode tree = tree(factory, new InputSource(
+                        getClass().getClassLoader().getResource(resource).toString()));
+
+                String xml = toXml(new JsonToXmlConverter(factory), tree.toString());
+                assertEquals(resource, tree, tree(factory, source(xml)));
+            }
+        }
+    }
+
+    @Test
+    public void whenArraysNullsAndAttributesThenWriteThem() throws Exception {
+        ElementValueHolderFactory factory = new ElementValueHolderFactory()
+                .setUsePrefixForAttributes(true).setAttrPrefix("@");
+        String json = "{\"a\":{\"b\":[1,{\"value\":\"2\",\"@y\":\"z\"}],\"c\":null,\"value\":\"text\",\"@x\":true}}";
+
+        assertEquals("<a x=\"true\"><b>1</b><b y=\"z\">2</b><c/>text</a>",
+                toXml(new JsonToXmlConverter(factory), json));
+    }
+
+    @Test
+    public void whenLongDecimalsAndAttributesAfterContentThenXmlConvertsToSameTree() throws Exception {
+        ElementValueHolderFactory factory = new ElementValueHolderFactory()
+                .setConvertToJsonPrimitives(true).setUsePrefixForAttributes(true).setAttrPrefix("@");
+        String xml = "<a v=\"0.11234567890123456789\"><b id=\"1\">0.11234567890123456789</b>"
+                + "<b id=\"2\">12345678901234567890.000000000000000000001</b><c>-1.5E-40</c>"
+                + "<d><e>3.14159265358979323846264338327950288</e></d></a>";
+        JsonNode tree = tree(factory, source(xml));
+
+        assertEquals(tree, tree(factory, source(toXml(new JsonToXmlConverter(factory), tree.toString()))));
+        assertEquals("<c id=\"1\">0.11234567890123456789</c>", toXml(new JsonToXmlConverter(factory),
+                "{\"c\":{\"value\":0.11234567890123456789,\"@id\":1}}"));
+    }
+
+    @Test
+    public void whenNoAttributePrefixThenAttributesAreElements() throws Exception {
+        assertEquals("<a><x>1</x><b>&lt;2></b></a>",
+                toXml(new JsonToXmlConverter(), "{\"a\":{\"x\":1,\"b\":\"<2>\"}}"));
+    }
+
+    @Test
+    public void whenWhitespaceThenOnlyPrefixedAttributesKeepIt() throws Exception {
+        ElementValueHolderFactory prefixed = new ElementValueHolderFactory().setUsePrefixForAttributes(true);
+        ElementValueHolderFactory plain = new ElementValueHolderFactory();
+        String xml = "<a x=\" \" y=\" 1 \"><b> </b><c> 2 </c></a>";
+
+        JsonNode tree = tree(prefixed, source(xml));
+        assertEquals("{\"a\":{\"b\":null,\"c\":\"2\",\"@x\":\" \",\"@y\":\" 1 \"}}", tree.toString());
+        assertEquals(tree, tree(prefixed, source(toXml(new JsonToXmlConverter(prefixed), tree.toString()))));
+
+        tree = tree(plain, source(xml));
+        assertEquals("{\"a\":{\"b\":null,\"c\":\"2\",\"x\":\" \",\"y\":\" 1 \"}}", tree.toString());
+        assertEquals("{\"a\":{\"b\":null,\"c\":\"2\",\"x\":null,\"y\":\"1\"}}",
+                tree(plain, source(toXml(new JsonToXmlConverter(plain), tree.toString()))).toString());
+    }
+
+    @Test
+    public void whenAttributeAfterBufferLimitThenFail() throws Exception {
+        ElementValueHolderFactory factory = new ElementValueHolderFactory()
+                .setUsePrefixForAttributes(true).setAttrPrefix("@");
+        String json = "{\"a\":{\"b\":[1,2,3],\"@x\":\"y\"}}";
+
+        assertEquals("<a x=\"y\"><b>1</b><b>2</b><b>3</b></a>",
+                toXml(new JsonToXmlConverter(factory), json));
+        try {
+            toXml(new JsonToXmlConverter(factory).setBufferLimit(2), json);
+            fail();
+        } catch (XMLStreamException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("'@x' of 'a'"));
+        }
+    }
+
+    @Test
+    public void whenContentExceedsBufferLimitThenStream() throws Exception {
+        ElementValueHolderFactory factory = new ElementValueHolderFactory()
+                .setUsePrefixForAttributes(true).setAttrPrefix("@");
+        StringBuilder json = new StringBuilder("{\"a\":{\"@x\":\"y\",\"b\":[");
+        StringBuilder xml = new StringBuilder("<a x=\"y\">");
+        for (int index = 0; index < 1000; index++) {
+            json.append(index == 0 ? "" : ",").append("{\"c\":").append(index).append('}');
+            xml.append("<b><c>").append(index).append("</c></b>");
+        }
+        json.append("]}}");
+        xml.append("</a>");
+
+        assertEquals(xml.toString(), toXml(new JsonToXmlConverter(factory).setBufferLimit(10), json.toString()));
+    }
+
+    @Test
+    public void whenStreamsThenWriteUtf8() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new JsonToXmlConverter().convert(
+                new ByteArrayInputStream("{\"a\":\"\u00e9\"}".getBytes(StandardCharsets.UTF_8)), out);
+
+        assertEquals("<a>\u00e9</a>", body(new String(out.toByteArray(), StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void whenNotOneRootThenFail() throws Exception {
+        for (String json : Arrays.asList("{}", "{\"a\":1,\"b\":2}", "{\"a\":[1,2]}", "[1]")) {
+            try {
+                toXml(new JsonToXmlConverter(), json);
+                fail(json);
+            } catch (XMLStreamException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenNegativeBufferLimitThenFail() {
+        new JsonToXmlConverter().setBufferLimit(-1);
+    }
+
+    private static String toXml(JsonToXmlConverter converter, String json) throws Exception {
+        StringWriter writer = new StringWriter();
+        converter.convert(new StringReader(json), writer);
+        return body(writer.toString());
+    }
+
+    private static String body(String xml) {
+        assertTrue(xml, xml.startsWith("<?xml "));
+        return xml.substring(xml.indexOf("?>") + 2);
+    }
+}
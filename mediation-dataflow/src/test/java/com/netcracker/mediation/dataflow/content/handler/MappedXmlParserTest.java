@@ -0,0 +1,93 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.*;
+
+public class MappedXmlParserTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ElementValueHolderFactory factory = new ElementValueHolderFactory()
+            .setConvertToJsonPrimitives(true)
+            .setUsePrefixForAttributes(true)
+            .setAttrPrefix("@");
+
+    @Test
+    public void whenWindowsAreSmallThenMatchSax() throws Exception {
+        for (String file : new String[]{"oneNode.xml", "arrayCd.xml", "arrayAnagrafica.xml", "nestedNode.xml"}) {
+            Path path = Paths.get("src/test/resources", file);
+            String xml = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+
+            assertEquals(file, sax(xml), mapped(path, 7));
+        }
+    }
+
+    @Test
+    public void whenNamespacesAndCdataThenMatchSax() throws Exception {
+        String xml = "<?xml version=\"1.0\"?><!-- comment --><p:root xmlns:p=\"urn:p\" xmlns=\"urn:d\" p:id=\"1\">"
+                + "<p:item>a &amp; b</p:item><item><![CDATA[<raw>]]></item><?pi data?><item>Perché €</item></p:root>";
+
+        assertEquals(sax(xml), mapped(write(xml), 3));
+        assertEquals(sax(xml), mapped(write(xml), MappedXmlParser.DEFAULT_WINDOW_SIZE));
+    }
+
+    @Test(expected = SAXException.class)
+    public void whenDocumentIsCutThenThrow() throws Exception {
+        mapped(write("<a><b>1</b>"), 4);
+    }
+
+    @Test(expected = SAXException.class)
+    public void whenFileIsEmptyThenThrow() throws Exception {
+        mapped(write(""), 4);
+    }
+
+    @Test
+    public void whenPrologIsReadThenTellWhatCanBeParsed() throws Exception {
+        assertTrue(MappedXmlParser.canParse(write("<a/>")));
+        assertTrue(MappedXmlParser.canParse(write("<?xml version='1.0' encoding='us-ascii'?><a/>")));
+        assertTrue(MappedXmlParser.canParse(write("<!-- [ --><!DOCTYPE a SYSTEM \"a[1].dtd\"><a>[</a>")));
+
+        assertFalse(MappedXmlParser.canParse(write("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><a/>")));
+        assertFalse(MappedXmlParser.canParse(write("<!DOCTYPE a [<!ENTITY e \"v\">]><a>&e;</a>")));
+        assertFalse(MappedXmlParser.canParse(Files.write(folder.newFile().toPath(),
+                "<a/>".getBytes(StandardCharsets.UTF_16))));
+        assertFalse(MappedXmlParser.canParse(write("")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenWindowSizeIsWrongThenThrow() {
+        new MappedXmlParser(0);
+    }
+
+    private Path write(String xml) throws Exception {
+        return Files.write(folder.newFile().toPath(), xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String mapped(Path path, int windowSize) throws Exception {
+        SaxJsonContentHandler handler = new SaxJsonContentHandler(factory);
+        new MappedXmlParser(windowSize).parse(path, handler);
+        return handler.getTree().toString();
+    }
+
+    private String sax(String xml) throws Exception {
+        SaxJsonContentHandler handler = new SaxJsonContentHandler(factory);
+        XMLReader xmlReader = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
+        xmlReader.setContentHandler(handler);
+        xmlReader.parse(new InputSource(new StringReader(xml)));
+        return handler.getTree().toString();
+    }
+}
@@ -0,0 +1,243 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ParallelXmlToJsonConverterTest extends AbstractHolderTest {
+
+    @Test
+    public void checkArrayCdMatchesSequential() throws Exception {
+        byte[] content = Files.readAllBytes(Paths.get("src/test/resources/arrayCd.xml"));
+        ElementValueHolderFactory factory = new ElementValueHolderFactory().setConvertToJsonPrimitives(true);
+
+        assertSameAsSequential(content, "/CATALOG/CD", factory);
+    }
+
+    @Test
+    public void checkArrayAnagraficaMatchesSequential() throws Exception {
+        byte[] content = Files.readAllBytes(Paths.get("src/test/resources/arrayAnagrafica.xml"));
+        ElementValueHolderFactory factory = new ElementValueHolderFactory()
+                .setValuePrefix("text")
+                .setConvertToJsonPrimitives(true)
+                .setUsePrefixForAttributes(true);
+
+        assertSameAsSequential(content, "/anagrafica/record", factory);
+    }
+
+    @Test
+    public void whenArraysAreDeclaredInsideRecordsThenMatchSequential() throws Exception {
+        byte[] content = Files.readAllBytes(Paths.get("src/test/resources/arrayAnagrafica.xml"));
+        ElementValueHolderFactory factory = new ElementValueHolderFactory()
+                .setShapeRegistry(new ShapeRegistry(100, false).declareArray("/anagrafica/record/codice_cliente"));
+
+        JsonNode tree = assertSameAsSequential(content, "/anagrafica/record", factory);
+        assertEquals("[\"5\"]", tree.get("anagrafica").get("record").get(0).get("codice_cliente").toString());
+    }
+
+    @Test
+    public void whenRegistryLearnsThenLearnRealPaths() throws Exception {
+        byte[] content = Files.readAllBytes(Paths.get("src/test/resources/arrayAnagrafica.xml"));
+        ShapeRegistry sequential = new ShapeRegistry();
+        ShapeRegistry parallel = new ShapeRegistry();
+
+        assertEquals(sequential(content, new ElementValueHolderFactory().setShapeRegistry(sequential)),
+                parallel(content, "/anagrafica/record", new ElementValueHolderFactory().setShapeRegistry(parallel)));
+        assertEquals(sequential.size(), parallel.size());
+        assertTrue(parallel.isArray("/anagrafica/record"));
+        assertFalse(parallel.isArray("/anagrafica/record/codice_cliente"));
+    }
+
+    @Test
+    public void whenWithinLimitsThenMatchSequential() throws Exception {
+        ElementValueHolderFactory factory = new ElementValueHolderFactory().setLimits(new ConversionLimits()
+                .setMaxElements(41).setMaxDepth(3).setMaxTextLength(5).setMaxArrayLength(10));
+
+        assertSameAsSequential(limitedRecords(), "/root/item", factory);
+    }
+
+    /**
+     * The batches run at the same time, so when the document breaks a limit in more places than one, the place
+     * reported may differ from the first one in document order.
+     */
+    @Test
+    public void whenOverLimitsThenFailLikeSequential() throws Exception {
+        for (ConversionLimits limits : new ConversionLimits[]{
+                new ConversionLimits().setMaxElements(40),
+                new ConversionLimits().setMaxDepth(2),
+                new ConversionLimits().setMaxTextLength(4),
+                new ConversionLimits().setMaxArrayLength(9),
+                new ConversionLimits().setMaxArrayLength(2)}) {
+            ElementValueHolderFactory factory = new ElementValueHolderFactory().setLimits(limits);
+            ConversionLimitException expected = convertFailing(() -> sequential(limitedRecords(), factory));
+            ConversionLimitException e = convertFailing(() -> parallel(limitedRecords(), "/root/item", factory));
+
+            assertEquals(expected.getLimit(), e.getLimit());
+            if (e.getLimit() == ConversionLimits.Limit.DEPTH || e.getLimit() == ConversionLimits.Limit.TEXT_LENGTH) {
+                assertEquals(expected.getPath(), e.getPath());
+            }
+        }
+    }
+
+    @Test
+    public void whenProjectionKeepsRecordsWholeThenConvertInParallel() throws Exception {
+        byte[] content = Files.readAllBytes(Paths.get("src/test/resources/arrayAnagrafica.xml"));
+        for (Projection projection : new Projection[]{
+                new Projection().exclude("//codice_fiscale"),
+                new Projection().include("/anagrafica/record").exclude("/anagrafica/record/indirizzo"),
+                new Projection().include("//record")}) {
+            ElementValueHolderFactory factory = new ElementValueHolderFactory().setProjection(projection);
+
+            assertTrue(new ParallelXmlToJsonConverter("/anagrafica/record", factory).isParallel());
+            assertSameAsSequential(content, "/anagrafica/record", factory);
+        }
+    }
+
+    @Test
+    public void whenProjectionReachesIntoRecordsThenConvertSequentially() throws Exception {
+        byte[] content = Files.readAllBytes(Paths.get("src/test/resources/arrayAnagrafica.xml"));
+        for (Projection projection : new Projection[]{
+                new Projection().include("/anagrafica/record/codice_cliente"),
+                new Projection().include("/anagrafica/testata"),
+                new Projection().exclude("/anagrafica/record")}) {
+            ElementValueHolderFactory factory = new ElementValueHolderFactory().setProjection(projection);
+
+            assertFalse(new ParallelXmlToJsonConverter("/anagrafica/record", factory).isParallel());
+            assertSameAsSequential(content, "/anagrafica/record", factory);
+        }
+    }
+
+    @Test
+    public void whenManyRecordsThenMatchSequential() throws Exception {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<root><head>h</head>");
+        for (int index = 0; index < 1000; index++) {
+            xml.append("<item id=\"").append(index).append("\"><value>").append(index).append("</value></item>");
+            if (index % 100 == 0) xml.append("<other>").append(index).append("</other>");
+        }
+        xml.append("<tail/></root>");
+
+        assertSameAsSequential(bytes(xml.toString()), "/root/item", new ElementValueHolderFactory());
+    }
+
+    @Test
+    public void whenMarkupInsideCommentsCdataAndAttributesThenMatchSequential() throws Exception {
+        String xml = "<?xml version=\"1.0\"?><a>"
+                + "<!-- <b>not a record</b> --><?pi <b>?>"
+                + "<b note=\"a > b\" other='/b>'><![CDATA[</b><b>]]>one</b>"
+                + "text<b/>"
+                + "<c><b>nested, not a record</b></c>"
+                + "<b><b>inner</b>two</b>"
+                + "</a>";
+
+        byte[] content = bytes(xml);
+        assertEquals(6, new XmlRecordScanner(new String[]{"a", "b"}, StandardCharsets.UTF_8).scan(content, 0, content.length).length);
+        assertSameAsSequential(content, "/a/b", new ElementValueHolderFactory());
+    }
+
+    @Test
+    public void whenParentIsRepeatedThenKeepDocumentOrder() throws Exception {
+        String xml = "<root><group n=\"1\"><row>1</row><row>2</row></group><skip/><group><row>3</row></group>"
+                + "<group><none/></group><group><row>4</row></group></root>";
+
+        assertSameAsSequential(bytes(xml), "/root/group/row", new ElementValueHolderFactory());
+    }
+
+    @Test
+    public void whenAttributeHasRecordNameThenMatchSequential() throws Exception {
+        String xml = "<root row=\"attribute\"><row>1</row><row>2</row></root>";
+
+        assertSameAsSequential(bytes(xml), "/root/row", new ElementValueHolderFactory());
+    }
+
+    @Test
+    public void whenDoctypeThenConvertSequentially() throws Exception {
+        String xml = "<!DOCTYPE root [<!ENTITY name \"value\">]><root><row>&name;</row><row>2</row></root>";
+
+        JsonNode tree = assertSameAsSequential(bytes(xml), "/root/row", new ElementValueHolderFactory());
+        assertEquals("value", tree.get("root").get("row").get(0).textValue());
+    }
+
+    @Test
+    public void whenSingleByteEncodingThenMatchSequential() throws Exception {
+        byte[] content = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><root><row>café</row><row>à</row></root>"
+                .getBytes(StandardCharsets.ISO_8859_1);
+
+        JsonNode tree = assertSameAsSequential(content, "/root/row", new ElementValueHolderFactory());
+        assertEquals("café", tree.get("root").get("row").get(0).textValue());
+    }
+
+    @Test
+    public void whenUtf16ThenConvertSequentially() throws Exception {
+        byte[] content = "<?xml version=\"1.0\" encoding=\"UTF-16\"?><root><row>1</row><row>2</row></root>"
+                .getBytes(StandardCharsets.UTF_16);
+
+        assertSameAsSequential(content, "/root/row", new ElementValueHolderFactory());
+    }
+
+    @Test(expected = SAXException.class)
+    public void whenRecordIsBrokenThenFail() throws Exception {
+        new ParallelXmlToJsonConverter("/root/row").convert(bytes("<root><row a=b>1</row></root>"));
+    }
+
+    /**
+     * @return 41 elements, 3 deep, with texts of 5 chars, an array of 10 records and arrays of 3 in every record
+     */
+    private static byte[] limitedRecords() {
+        StringBuilder xml = new StringBuilder("<root>");
+        for (int index = 0; index < 10; index++) xml.append("<item><v>1</v><v>2</v><v>12345</v></item>");
+        return bytes(xml.append("</root>").toString());
+    }
+
+    private static ConversionLimitException convertFailing(Conversion conversion) throws Exception {
+        try {
+            conversion.convert();
+        } catch (ConversionLimitException e) {
+            return e;
+        }
+        throw new AssertionError("The limits are not reached");
+    }
+
+    private JsonNode assertSameAsSequential(byte[] content, String recordPath, ElementValueHolderFactory factory)
+            throws Exception {
+        JsonNode expected = sequential(content, factory);
+        JsonNode tree = parallel(content, recordPath, factory);
+
+        assertEquals(expected.toString(), tree.toString());
+        return tree;
+    }
+
+    private static JsonNode sequential(byte[] content, ElementValueHolderFactory factory) throws Exception {
+        return tree(factory, new InputSource(new ByteArrayInputStream(content)));
+    }
+
+    private static JsonNode parallel(byte[] content, String recordPath, ElementValueHolderFactory factory)
+            throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            return new ParallelXmlToJsonConverter(recordPath, factory)
+                    .setPool(pool)
+                    .setBatchSize(3)
+                    .convert(content);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private interface Conversion {
+
+        JsonNode convert() throws Exception;
+    }
+}
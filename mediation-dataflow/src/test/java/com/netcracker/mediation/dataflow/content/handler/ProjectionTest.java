@@ -0,0 +1,117 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+public class ProjectionTest extends AbstractHolderTest {
+
+    private static final String XML = "<r><rec id=\"1\"><name>A</name><secret>x</secret><addr><city>Rome</city>"
+            + "<zip>1</zip></addr><note>n</note></rec><rec id=\"2\"><name>B</name><addr><city>Como</city></addr>"
+            + "</rec><meta><secret>y</secret><count>2</count></meta></r>";
+
+    @Test
+    public void whenIncludePathsThenKeepOnlyThemAndTheWayToThem() throws Exception {
+        Projection projection = new Projection().include("/r/rec/name").include("/r/rec/addr/city");
+
+        assertEquals(
+                "{\"r\":{\"rec\":[{\"name\":\"A\",\"addr\":{\"city\":\"Rome\"},\"id\":\"1\"},"
+                        + "{\"name\":\"B\",\"addr\":{\"city\":\"Como\"},\"id\":\"2\"}]}}",
+                convert(projection)
+        );
+    }
+
+    @Test
+    public void whenExcludeAnyDepthThenDropEverywhere() throws Exception {
+        String json = convert(new Projection().exclude("//secret").exclude("/r/rec/addr"));
+
+        assertFalse(json.contains("secret"));
+        assertFalse(json.contains("addr"));
+        assertTrue(json.contains("\"count\":\"2\""));
+        assertTrue(json.contains("\"note\":\"n\""));
+    }
+
+    @Test
+    public void whenIncludedElementHasExcludedChildThenDropIt() throws Exception {
+        Projection projection = new Projection().include("/r/*").exclude("//addr").exclude("/r/meta/secret");
+
+        assertEquals(
+                "{\"r\":{\"rec\":[{\"name\":\"A\",\"secret\":\"x\",\"note\":\"n\",\"id\":\"1\"},"
+                        + "{\"name\":\"B\",\"id\":\"2\"}],\"meta\":{\"count\":\"2\"}}}",
+                convert(projection)
+        );
+    }
+
+    @Test
+    public void whenDescendantInTheMiddleThenMatchAnyDepth() throws Exception {
+        assertEquals(
+                "{\"r\":{\"rec\":[{\"addr\":{\"city\":\"Rome\"},\"id\":\"1\"},{\"addr\":{\"city\":\"Como\"},\"id\":\"2\"}]}}",
+                convert(new Projection().include("/r//city"))
+        );
+    }
+
+    @Test
+    public void whenNothingMatchesThenKeepEmptyRoot() throws Exception {
+        assertEquals("{}", convert(new Projection().include("/other")));
+    }
+
+    @Test
+    public void whenStreamingOrStaxThenSameAsTree() throws Exception {
+        assertSameAsTree(new Projection().include("/r/rec/addr").exclude("//zip"));
+        assertSameAsTree(new Projection().include("/r//city").include("//count"));
+        assertSameAsTree(new Projection().exclude("/r/*/name"));
+    }
+
+    @Test
+    public void whenPathIsWrongThenThrow() {
+        for (String path : new String[]{"", "/", "a/b", "/a/", "/a///b", "//"}) {
+            try {
+                new Projection().include(path);
+                fail(path);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void whenTooManyStepsThenThrowAndKeepPaths() {
+        StringBuilder path = new StringBuilder();
+        for (int index = 0; index < 40; index++) path.append("/a");
+        Projection projection = new Projection().include(path.toString());
+
+        try {
+            projection.exclude(path.toString());
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        assertNotEquals(0, projection.next(projection.start(), "a"));
+    }
+
+    private static void assertSameAsTree(Projection projection) throws Exception {
+        ElementValueHolderFactory factory = new ElementValueHolderFactory().setProjection(projection);
+
+        StringWriter writer = new StringWriter();
+        JsonGenerator generator = new JsonFactory().createGenerator(writer);
+        parse(new SaxJsonStreamingHandler(generator, factory), XML);
+        generator.close();
+
+        XMLStreamReader reader = XMLInputFactory.newFactory().createXMLStreamReader(new StringReader(XML));
+        String stax = new StaxJsonConverter(factory).convert(reader).toString();
+
+        String tree = convert(projection);
+        assertEquals(tree, stax);
+        JSONAssert.assertEquals(tree, writer.toString(), true);
+    }
+
+    private static String convert(Projection projection) throws Exception {
+        return tree(new ElementValueHolderFactory().setProjection(projection), XML).toString();
+    }
+}
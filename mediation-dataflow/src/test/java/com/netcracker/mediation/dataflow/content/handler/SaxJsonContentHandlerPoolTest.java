@@ -0,0 +1,52 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SaxJsonContentHandlerPoolTest {
+
+    private final SaxJsonContentHandlerPool pool = new SaxJsonContentHandlerPool(1);
+
+    @Test
+    public void whenHandlerIsReleasedThenAcquireItAgain() throws Exception {
+        SaxJsonContentHandler handler = pool.acquire();
+        handler.setRecordListener("/a/b", new RecordListener() {
+            @Override
+            public void onRecord(JsonNode record, JsonNode envelope) {
+            }
+        });
+        pool.release(handler);
+
+        SaxJsonContentHandler reused = pool.acquire();
+        assertSame(handler, reused);
+        assertNull(reused.getRecordListener());
+        assertNull(reused.getTree());
+        assertSame(pool.getElementValueFactory(), reused.getElementValueFactory());
+    }
+
+    @Test
+    public void whenPoolIsFullThenDropReleasedHandler() throws Exception {
+        SaxJsonContentHandler first = pool.acquire();
+        SaxJsonContentHandler second = pool.acquire();
+        assertNotSame(first, second);
+
+        assertTrue(pool.release(first));
+        assertFalse(pool.release(second));
+
+        assertEquals(1, pool.getIdleCount());
+        assertSame(first, pool.acquire());
+        assertEquals(0, pool.getIdleCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenHandlerIsForeignThenFail() throws Exception {
+        pool.release(new SaxJsonContentHandler());
+    }
+
+    @Test
+    public void whenSameThreadThenSameHandler() throws Exception {
+        assertSame(pool.forCurrentThread(), pool.forCurrentThread());
+    }
+}
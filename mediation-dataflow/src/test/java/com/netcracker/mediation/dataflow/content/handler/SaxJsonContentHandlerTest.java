@@ -1,13 +1,17 @@
 package com.netcracker.mediation.dataflow.content.handler;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import org.junit.Test;
 import org.skyscreamer.jsonassert.JSONAssert;
 import org.skyscreamer.jsonassert.JSONCompareMode;
 import org.xml.sax.Attributes;
 import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.AttributesImpl;
 
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.mock;
@@ -410,4 +414,145 @@ public class SaxJsonContentHandlerTest extends AbstractHolderTest {
                 "{\"anagrafica\":{\"testata\":{\"nomemercato\":{\"@id\":\"007\",\"#text\":\"Mercato di test\"},\"data\":\"Giovedi 18 dicembre 2003 16.05.29\"},\"record\":[{\"codice_cliente\":\"5\",\"rag_soc\":\"Miami American Cafe\",\"codice_fiscale\":\"IT07654930130\",\"indirizzo\":{\"@tipo\":\"casa\",\"#text\":\"Viale Carlo Espinasse 5, Como\"},\"num_prodotti\":{\"testata\":{\"nomemercato\":{\"@id\":\"007\",\"#text\":\"Mercato di test\"},\"data\":\"Giovedi 18 dicembre 2003 16.05.29\"}}},{\"codice_cliente\":\"302\",\"rag_soc\":\"Filiberto Gilardi\",\"codice_fiscale\":\"IT87654770157\",\"indirizzo\":{\"@tipo\":\"ufficio\",\"#text\":\"Via Biancospini 20, Messina\"},\"num_prodotti\":{\"testata\":{\"nomemercato\":{\"@id\":\"007\",\"#text\":\"Mercato di test\"},\"data\":\"Giovedi 18 dicembre 2003 16.05.29\"}}},{\"codice_cliente\":\"1302\",\"rag_soc\":\"Eidon\",\"codice_fiscale\":\"IT887511231\",\"indirizzo\":{\"@tipo\":\"ufficio\",\"#text\":\"Via Bassini 17/2, Milano\"},\"num_prodotti\":{\"testata\":{\"nomemercato\":{\"@id\":\"007\",\"#text\":\"Mercato di test\"},\"data\":\"Giovedi 18 dicembre 2003 16.05.29\"}}}]}}",
                 JSONCompareMode.LENIENT);
     }
+
+    @Test
+    public void whenRecordPathIsSetThenEveryRecordGoesToListener() throws Exception {
+        SAXParserFactory saxParserFactory = SAXParserFactory.newInstance();
+        SAXParser saxParser = saxParserFactory.newSAXParser();
+        XMLReader xmlReader = saxParser.getXMLReader();
+
+        final List<JsonNode> records = new ArrayList<>();
+        final List<JsonNode> envelopes = new ArrayList<>();
+        handler.setRecordListener("/anagrafica/record", new RecordListener() {
+            @Override
+            public void onRecord(JsonNode record, JsonNode envelope) {
+                records.add(record);
+                envelopes.add(envelope);
+            }
+        });
+
+        xmlReader.setContentHandler(handler);
+        xmlReader.parse("src/test/resources/arrayAnagrafica.xml");
+
+        assertEquals(11, records.size());
+        assertEquals("5", records.get(0).get("codice_cliente").textValue());
+        assertEquals("casa", records.get(0).get("indirizzo").get("tipo").textValue());
+        assertEquals("12", records.get(10).get("codice_cliente").textValue());
+
+        assertEquals("007", envelopes.get(0).get("anagrafica").get("testata").get("nomemercato").get("id").textValue());
+        assertNull(envelopes.get(0).get("anagrafica").get("record"));
+
+        assertNull(handler.getTree().get("anagrafica").get("record"));
+        assertNotNull(handler.getTree().get("anagrafica").get("testata"));
+    }
+
+    @Test
+    public void whenRecordEndsThenEnvelopeHasAttributesAndTextOfAncestors() throws Exception {
+        final List<JsonNode> envelopes = new ArrayList<>();
+        handler.setRecordListener("/root/rec", new RecordListener() {
+            @Override
+            public void onRecord(JsonNode record, JsonNode envelope) {
+                envelopes.add(envelope);
+            }
+        });
+        AttributesImpl attributes = new AttributesImpl();
+        attributes.addAttribute(null, null, "batch", "CDATA", "7");
+
+        handler.startDocument();
+        handler.startElement(null, null, "root", attributes);
+        handler.characters("hdr".toCharArray(), 0, 3);
+        handler.startElement(null, null, "head", mock(Attributes.class));
+        handler.characters("1".toCharArray(), 0, 1);
+        handler.endElement(null, null, "head");
+        handler.startElement(null, null, "rec", mock(Attributes.class));
+        handler.characters("a".toCharArray(), 0, 1);
+        handler.endElement(null, null, "rec");
+        handler.endElement(null, null, "root");
+        handler.endDocument();
+
+        assertEquals("{\"root\":{\"head\":\"1\",\"value\":\"hdr\",\"batch\":\"7\"}}", envelopes.get(0).toString());
+        assertEquals(handler.getTree(), envelopes.get(0));
+    }
+
+    @Test
+    public void whenElementWithRecordNameIsOutsideOfPathThenKeepIt() throws Exception {
+        final List<JsonNode> records = new ArrayList<>();
+        handler.setRecordListener("/managers/person", new RecordListener() {
+            @Override
+            public void onRecord(JsonNode record, JsonNode envelope) {
+                records.add(record);
+            }
+        });
+
+        handler.startDocument();
+        handler.startElement(null, null, "managers", mock(Attributes.class));
+        handler.startElement(null, null, "person", mock(Attributes.class));
+        handler.characters("Bob".toCharArray(), 0, "Bob".length());
+        handler.endElement(null, null, "person");
+        handler.startElement(null, null, "team", mock(Attributes.class));
+        handler.startElement(null, null, "person", mock(Attributes.class));
+        handler.characters("Dave".toCharArray(), 0, "Dave".length());
+        handler.endElement(null, null, "person");
+        handler.endElement(null, null, "team");
+        handler.endElement(null, null, "managers");
+        handler.endDocument();
+
+        assertEquals(1, records.size());
+        assertEquals("Bob", records.get(0).textValue());
+        assertEquals("Dave", handler.getTree().get("managers").get("team").get("person").textValue());
+    }
+
+    @Test
+    public void whenParserReusesAttributesThenKeepAttributesOfEveryElement() throws Exception {
+        AttributesImpl attributes = new AttributesImpl();
+
+        handler.startDocument();
+        attributes.addAttribute(null, null, "id", "CDATA", "1");
+        handler.startElement(null, null, "managers", attributes);
+        attributes.clear();
+        attributes.addAttribute(null, null, "id", "CDATA", "2");
+        handler.startElement(null, null, "person", attributes);
+        attributes.clear();
+        handler.endElement(null, null, "person");
+        handler.endElement(null, null, "managers");
+        handler.endDocument();
+
+        assertEquals("1", handler.getTree().get("managers").get("id").textValue());
+        assertEquals("2", handler.getTree().get("managers").get("person").get("id").textValue());
+    }
+
+    @Test
+    public void whenHandlerIsReusedThenEveryDocumentHasOwnTree() throws Exception {
+        XMLReader xmlReader = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
+        xmlReader.setContentHandler(handler);
+
+        xmlReader.parse("src/test/resources/arrayCd.xml");
+        JsonNode first = handler.getTree();
+        String expected = first.toString();
+
+        xmlReader.parse("src/test/resources/arrayCd.xml");
+
+        assertNotSame(first, handler.getTree());
+        assertEquals(expected, first.toString());
+        assertEquals(expected, handler.getTree().toString());
+    }
+
+    @Test
+    public void whenResetAfterBrokenDocumentThenConvertNextOne() throws Exception {
+        handler.startDocument();
+        handler.startElement(null, null, "broken", mock(Attributes.class));
+        handler.startElement(null, null, "element", mock(Attributes.class));
+        handler.characters("lost".toCharArray(), 0, "lost".length());
+
+        handler.reset();
+        assertNull(handler.getTree());
+
+        handler.startDocument();
+        handler.startElement(null, null, "element", mock(Attributes.class));
+        handler.endElement(null, null, "element");
+        handler.endDocument();
+
+        assertEquals(1, handler.getTree().size());
+        assertTrue(handler.getTree().get("element").isNull());
+    }
 }
@@ -0,0 +1,81 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class SaxJsonConverterTest {
+
+    private final SaxJsonConverter converter = new SaxJsonConverter(
+            new ElementValueHolderFactory().setConvertToJsonPrimitives(true), 2);
+
+    @Test
+    public void whenConvertedThenPairIsKept() throws Exception {
+        assertEquals(0, converter.getIdleCount());
+
+        assertEquals("{\"a\":{\"b\":1}}", converter.convert(source("<a><b>1</b></a>")).toString());
+        assertEquals(1, converter.getIdleCount());
+
+        assertEquals("{\"c\":\"x\"}", converter.convert(source("<c>x</c>")).toString());
+        assertEquals(1, converter.getIdleCount());
+    }
+
+    @Test
+    public void whenConvertAllThenKeepOrderAndResults() throws Exception {
+        List<JsonNode> trees = converter.convertAll(Arrays.asList(
+                source("<a><b>1</b><b>2</b></a>"),
+                source("<a><b>3</b></a>"),
+                source("<d/>")
+        ));
+
+        assertEquals(3, trees.size());
+        assertEquals("{\"a\":{\"b\":[1,2]}}", trees.get(0).toString());
+        assertEquals("{\"a\":{\"b\":3}}", trees.get(1).toString());
+        assertEquals("{\"d\":null}", trees.get(2).toString());
+    }
+
+    @Test
+    public void whenDocumentFailsThenDropPair() throws Exception {
+        try {
+            converter.convert(source("<a><b></a>"));
+            fail();
+        } catch (SAXException expected) {
+        }
+        assertEquals(0, converter.getIdleCount());
+
+        assertEquals("{\"a\":\"1\"}", new SaxJsonConverter(1).convert(source("<a>1</a>")).toString());
+    }
+
+    @Test
+    public void whenSharedByThreadsThenConvertEach() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<JsonNode>> trees = new ArrayList<>();
+            for (int index = 0; index < 100; index++) {
+                String xml = "<a><b>" + index + "</b></a>";
+                trees.add(executor.submit(() -> converter.convert(source(xml))));
+            }
+            for (int index = 0; index < 100; index++) {
+                assertEquals(index, trees.get(index).get().get("a").get("b").intValue());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(converter.getIdleCount() <= 2);
+    }
+
+    private static InputSource source(String xml) {
+        return new InputSource(new StringReader(xml));
+    }
+}
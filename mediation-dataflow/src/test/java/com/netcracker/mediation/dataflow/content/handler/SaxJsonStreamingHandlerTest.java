@@ -0,0 +1,273 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.skyscreamer.jsonassert.JSONCompareMode;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class SaxJsonStreamingHandlerTest extends AbstractHolderTest {
+
+    private static final String[] NAMES = {"a", "b", "value", "c"};
+    private static final String[] TEXTS = {"", " ", "1", "t", " 2.5 "};
+
+    private StringWriter writer = new StringWriter();
+
+    @Test
+    public void whenCharactersThenWriteValue() throws Exception {
+        SaxJsonStreamingHandler handler = new SaxJsonStreamingHandler(newGenerator());
+        handler.startDocument();
+        handler.startElement(null, null, "element", mock(Attributes.class));
+        handler.characters("something".toCharArray(), 0, "something".length());
+        handler.endElement(null, null, "element");
+        handler.endDocument();
+
+        assertEquals("{\"element\":\"something\"}", writer.toString());
+    }
+
+    @Test
+    public void whenElementWithAttributesThenWriteObject() throws Exception {
+        SaxJsonStreamingHandler handler = new SaxJsonStreamingHandler(newGenerator());
+        handler.startDocument();
+        handler.startElement(null, null, "element", getMockedAttributes());
+        handler.characters("super value".toCharArray(), 0, "super value".length());
+        handler.endElement(null, null, "element");
+        handler.endDocument();
+
+        JSONAssert.assertEquals(
+                "{\"element\":{\"value\":\"super value\",\"int\":\"1\",\"bool\":\"true\",\"str\":\"hello\"}}",
+                writer.toString(),
+                JSONCompareMode.STRICT);
+    }
+
+    @Test
+    public void whenAddingElementsWithExistingNameThenWriteArray() throws Exception {
+        SaxJsonStreamingHandler handler = new SaxJsonStreamingHandler(newGenerator());
+        handler.startDocument();
+        handler.startElement(null, null, "managers", mock(Attributes.class));
+        for (String name : new String[]{"Bob", "Dave", "Mary"}) {
+            handler.startElement(null, null, "person", mock(Attributes.class));
+            handler.characters(name.toCharArray(), 0, name.length());
+            handler.endElement(null, null, "person");
+        }
+        handler.endElement(null, null, "managers");
+        handler.endDocument();
+
+        assertEquals("{\"managers\":{\"person\":[\"Bob\",\"Dave\",\"Mary\"]}}", writer.toString());
+    }
+
+    @Test
+    public void whenBufferLimitIsExceededThenWriteSingleField() throws Exception {
+        SaxJsonStreamingHandler handler = new SaxJsonStreamingHandler(newGenerator()).setBufferLimit(2);
+        handler.startDocument();
+        handler.startElement(null, null, "root", mock(Attributes.class));
+        handler.startElement(null, null, "records", mock(Attributes.class));
+        for (int index = 0; index < 5; index++) {
+            handler.startElement(null, null, "record", mock(Attributes.class));
+            handler.characters("1".toCharArray(), 0, 1);
+            handler.endElement(null, null, "record");
+        }
+        handler.endElement(null, null, "records");
+        handler.endElement(null, null, "root");
+        handler.endDocument();
+
+        assertEquals("{\"root\":{\"records\":{\"record\":[\"1\",\"1\",\"1\",\"1\",\"1\"]}}}", writer.toString());
+    }
+
+    @Test
+    public void whenSameNameRepeatsAfterOtherSiblingsThenJoinFirstLikeTree() throws Exception {
+        ElementValueHolderFactory factory = new ElementValueHolderFactory().setConvertToJsonPrimitives(true);
+        String xml = "<a><b>1</b><c/><b>2</b><d><b/><e/><b>x</b></d><b>3</b></a>";
+
+        assertEquals("{\"a\":{\"b\":[1,2,3],\"c\":null,\"d\":{\"b\":[null,\"x\"],\"e\":null}}}",
+                stream(xml, new SaxJsonStreamingHandler(newGenerator(), factory)));
+        assertEquals(tree(factory, xml).toString(), writer.toString());
+    }
+
+    @Test
+    public void whenNamesCollideWithValuePrefixOrAttributesThenMergeLikeTree() throws Exception {
+        ElementValueHolderFactory factory = new ElementValueHolderFactory().setConvertToJsonPrimitives(true);
+        for (String xml : new String[]{
+                "<a value=\"1\"><value>2</value>txt</a>",
+                "<a value=\"1\">txt</a>",
+                "<a value=\"1\"><value>2</value></a>",
+                "<a><value>2</value><b/>txt</a>",
+                "<a b=\"1\" c=\"2\"><b>3</b><c/><b>4</b></a>",
+                "<a><b b=\"1\"><b>2</b></b></a>"}) {
+            writer = new StringWriter();
+
+            assertEquals(xml, tree(factory, xml).toString(),
+                    stream(xml, new SaxJsonStreamingHandler(newGenerator(), factory).setBufferLimit(2)));
+        }
+    }
+
+    @Test
+    public void whenRepeatComesAfterBufferLimitThenFailOrWriteSeparateField() throws Exception {
+        ElementValueHolderFactory factory = new ElementValueHolderFactory().setConvertToJsonPrimitives(true);
+        String xml = "<a><b><x>1</x><x>2</x><x>3</x></b><c/><b>2</b></a>";
+
+        try {
+            stream(xml, new SaxJsonStreamingHandler(newGenerator(), factory).setBufferLimit(3));
+            fail();
+        } catch (SAXException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("'b' under '/a' repeats"));
+        }
+
+        writer = new StringWriter();
+        assertEquals("{\"a\":{\"b\":{\"x\":[1,2,3]},\"c\":null,\"b\":2}}", stream(xml,
+                new SaxJsonStreamingHandler(newGenerator(), factory).setBufferLimit(3).setRepeatsAsSeparateFields(true)));
+    }
+
+    @Test
+    public void whenArrayIsLearnedThenRepeatAfterBufferLimitJoinsIt() throws Exception {
+        ElementValueHolderFactory factory = new ElementValueHolderFactory()
+                .setConvertToJsonPrimitives(true)
+                .setShapeRegistry(new ShapeRegistry());
+        String xml = "<a><b><x>1</x><x>2</x><x>3</x></b><b>2</b></a>";
+        stream(xml, new SaxJsonStreamingHandler(newGenerator(), factory));
+
+        writer = new StringWriter();
+        assertEquals("{\"a\":{\"b\":[{\"x\":[1,2,3]},2]}}",
+                stream(xml, new SaxJsonStreamingHandler(newGenerator(), factory).setBufferLimit(3)));
+    }
+
+    /**
+     * Random documents with repeats, attributes and text named like children; within the buffer limit the JSON
+     * is the tree, over it the only other outcome is a failure.
+     */
+    @Test
+    public void whenRandomDocumentsThenMatchTreeOrFail() throws Exception {
+        Random random = new Random(42);
+        for (int document = 0; document < 300; document++) {
+            StringBuilder xml = new StringBuilder();
+            randomElement(random, "r", 0, xml);
+
+            for (ElementValueHolderFactory factory : Arrays.asList(
+                    new ElementValueHolderFactory(),
+                    new ElementValueHolderFactory().setConvertToJsonPrimitives(true)
+                            .setUsePrefixForAttributes(true).setAttrPrefix("@"),
+                    new ElementValueHolderFactory().setValuePrefix("b"))) {
+                String tree = tree(factory, xml.toString()).toString();
+                for (int bufferLimit : new int[]{1, 4, 16, 1000}) {
+                    writer = new StringWriter();
+                    try {
+                        assertEquals(xml + " " + bufferLimit, tree, stream(xml.toString(),
+                                new SaxJsonStreamingHandler(newGenerator(), factory).setBufferLimit(bufferLimit)));
+                    } catch (SAXException e) {
+                        assertTrue(xml.toString(), bufferLimit < 1000);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void whenShapesAreLearnedThenMatchTree() throws Exception {
+        ElementValueHolderFactory treeFactory = new ElementValueHolderFactory().setShapeRegistry(new ShapeRegistry());
+        ElementValueHolderFactory streamFactory = new ElementValueHolderFactory().setShapeRegistry(new ShapeRegistry());
+        Random random = new Random(7);
+        for (int document = 0; document < 100; document++) {
+            StringBuilder xml = new StringBuilder();
+            randomElement(random, "r", 0, xml);
+
+            writer = new StringWriter();
+            assertEquals(xml.toString(), tree(treeFactory, xml.toString()).toString(), stream(xml.toString(),
+                    new SaxJsonStreamingHandler(newGenerator(), streamFactory)));
+        }
+    }
+
+    @Test
+    public void checkArrayCdMatchesTree() throws Exception {
+        assertSameAsTree("src/test/resources/arrayCd.xml", new ElementValueHolderFactory());
+    }
+
+    @Test
+    public void checkArrayAnagraficaMatchesTree() throws Exception {
+        assertSameAsTree(
+                "src/test/resources/arrayAnagrafica.xml",
+                new ElementValueHolderFactory().setValuePrefix("text").setConvertToJsonPrimitives(true)
+        );
+    }
+
+    @Test
+    public void checkNestedNodesMatchesTree() throws Exception {
+        assertSameAsTree(
+                "src/test/resources/nestedNode.xml",
+                new ElementValueHolderFactory()
+                        .setAttrPrefix("@")
+                        .setUsePrefixForAttributes(true)
+                        .setValuePrefix("#text")
+        );
+    }
+
+    @Test
+    public void whenTextIsSplitByChildrenThenJoinItLikeTree() throws Exception {
+        SaxJsonStreamingHandler handler = new SaxJsonStreamingHandler(newGenerator(),
+                new ElementValueHolderFactory().setConvertToJsonPrimitives(true));
+        handler.startDocument();
+        handler.startElement(null, null, "a", mock(Attributes.class));
+        characters(handler, " 1");
+        handler.startElement(null, null, "b", mock(Attributes.class));
+        characters(handler, "x");
+        handler.endElement(null, null, "b");
+        characters(handler, "2");
+        handler.startElement(null, null, "c", mock(Attributes.class));
+        characters(handler, "3 ");
+        handler.endElement(null, null, "c");
+        characters(handler, "3 ");
+        handler.endElement(null, null, "a");
+        handler.endDocument();
+
+        assertEquals("{\"a\":{\"b\":\"x\",\"c\":3,\"value\":123}}", writer.toString());
+    }
+
+    private static void randomElement(Random random, String name, int depth, StringBuilder xml) {
+        xml.append('<').append(name);
+        for (String attribute : NAMES) {
+            if (random.nextInt(5) == 0) xml.append(' ').append(attribute).append("=\"").append(random.nextInt(3)).append('"');
+        }
+        xml.append('>');
+
+        int children = depth < 4 ? random.nextInt(5) : 0;
+        for (int child = 0; child < children; child++) {
+            if (random.nextInt(4) == 0) xml.append(TEXTS[random.nextInt(TEXTS.length)]);
+            randomElement(random, NAMES[random.nextInt(NAMES.length)], depth + 1, xml);
+        }
+        xml.append(TEXTS[random.nextInt(TEXTS.length)]).append("</").append(name).append('>');
+    }
+
+    private String stream(String xml, SaxJsonStreamingHandler handler) throws Exception {
+        parse(handler, xml);
+        handler.getGenerator().close();
+        return writer.toString();
+    }
+
+    private static void characters(ContentHandler handler, String text) throws SAXException {
+        handler.characters(text.toCharArray(), 0, text.length());
+    }
+
+    private void assertSameAsTree(String file, ElementValueHolderFactory factory) throws Exception {
+        String tree = tree(factory, new InputSource(file)).toString();
+
+        JsonGenerator generator = newGenerator();
+        parse(new SaxJsonStreamingHandler(generator, factory), new InputSource(file));
+        generator.close();
+
+        JSONAssert.assertEquals(tree, writer.toString(), JSONCompareMode.STRICT);
+    }
+
+    private JsonGenerator newGenerator() throws Exception {
+        return new JsonFactory().createGenerator(writer);
+    }
+}
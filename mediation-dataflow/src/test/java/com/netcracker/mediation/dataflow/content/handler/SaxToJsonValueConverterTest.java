@@ -0,0 +1,106 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.node.*;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import static org.junit.Assert.*;
+
+public class SaxToJsonValueConverterTest {
+
+    @Test
+    public void whenConversionIsDisabledThenReturnText() throws Exception {
+        assertEquals(TextNode.valueOf("13"), SaxToJsonValueConverter.convert("13", false));
+        assertEquals(TextNode.valueOf("true"), SaxToJsonValueConverter.convert("true", false));
+    }
+
+    @Test
+    public void whenIntegerFitsThenReturnNarrowestNode() throws Exception {
+        assertEquals(IntNode.valueOf(13), SaxToJsonValueConverter.convert("13", true));
+        assertEquals(IntNode.valueOf(-1112), SaxToJsonValueConverter.convert("-1112", true));
+        assertEquals(IntNode.valueOf(7), SaxToJsonValueConverter.convert("007", true));
+        assertEquals(IntNode.valueOf(0), SaxToJsonValueConverter.convert("-0", true));
+        assertEquals(LongNode.valueOf(4294967296L), SaxToJsonValueConverter.convert("4294967296", true));
+        assertEquals(LongNode.valueOf(Long.MAX_VALUE), SaxToJsonValueConverter.convert("9223372036854775807", true));
+        assertEquals(LongNode.valueOf(Long.MIN_VALUE), SaxToJsonValueConverter.convert("-9223372036854775808", true));
+    }
+
+    @Test
+    public void whenIntegerOverflowsLongThenReturnBigInteger() throws Exception {
+        assertEquals(
+                BigIntegerNode.valueOf(new BigInteger("12345678901234567890")),
+                SaxToJsonValueConverter.convert("12345678901234567890", true)
+        );
+    }
+
+    @Test
+    public void whenDecimalFitsDoubleThenReturnDouble() throws Exception {
+        assertEquals(DoubleNode.valueOf(10.9), SaxToJsonValueConverter.convert("10.9", true));
+        assertEquals(DoubleNode.valueOf(10.0), SaxToJsonValueConverter.convert("10.0", true));
+        assertEquals(DoubleNode.valueOf(0.001), SaxToJsonValueConverter.convert("0.001", true));
+        assertEquals(DoubleNode.valueOf(-0.5), SaxToJsonValueConverter.convert("-.5", true));
+        assertEquals(DoubleNode.valueOf(0.0), SaxToJsonValueConverter.convert("-0.0", true));
+        assertEquals(DoubleNode.valueOf(0.1), SaxToJsonValueConverter.convert("0.1", true));
+    }
+
+    @Test
+    public void whenDecimalLosesPrecisionThenReturnBigDecimal() throws Exception {
+        assertEquals(
+                DecimalNode.valueOf(new BigDecimal("1234567890.1234567890")),
+                SaxToJsonValueConverter.convert("1234567890.1234567890", true)
+        );
+    }
+
+    @Test
+    public void whenDoubleIsWrittenOtherwiseThenReturnBigDecimal() throws Exception {
+        assertEquals(DecimalNode.valueOf(new BigDecimal("1.50")), SaxToJsonValueConverter.convert("1.50", true));
+        assertEquals(DecimalNode.valueOf(new BigDecimal("0.00001")), SaxToJsonValueConverter.convert("0.00001", true));
+        assertEquals(DecimalNode.valueOf(new BigDecimal("12345678.5")), SaxToJsonValueConverter.convert("12345678.5", true));
+        assertEquals("1.50", SaxToJsonValueConverter.convert("1.50", true).toString());
+        assertEquals("0.00001", SaxToJsonValueConverter.convert("0.00001", true).toString());
+    }
+
+    @Test
+    public void whenBigDecimalIsRequestedThenKeepScale() throws Exception {
+        assertEquals(DecimalNode.valueOf(new BigDecimal("10.90")), SaxToJsonValueConverter.convert("10.90", true, true));
+        assertEquals(IntNode.valueOf(13), SaxToJsonValueConverter.convert("13", true, true));
+    }
+
+    @Test
+    public void whenBooleanInAnyCaseThenReturnBoolean() throws Exception {
+        assertEquals(BooleanNode.TRUE, SaxToJsonValueConverter.convert("TRUE", true));
+        assertEquals(BooleanNode.FALSE, SaxToJsonValueConverter.convert("False", true));
+        assertEquals(TextNode.valueOf("trueish"), SaxToJsonValueConverter.convert("trueish", true));
+    }
+
+    @Test
+    public void whenTextIsNotNumberThenReturnText() throws Exception {
+        assertEquals(TextNode.valueOf("-"), SaxToJsonValueConverter.convert("-", true));
+        assertEquals(TextNode.valueOf("."), SaxToJsonValueConverter.convert(".", true));
+        assertEquals(TextNode.valueOf("5."), SaxToJsonValueConverter.convert("5.", true));
+        assertEquals(TextNode.valueOf("1.2.3"), SaxToJsonValueConverter.convert("1.2.3", true));
+        assertEquals(TextNode.valueOf("+1"), SaxToJsonValueConverter.convert("+1", true));
+        assertEquals(TextNode.valueOf("1e5"), SaxToJsonValueConverter.convert("1e5", true));
+        assertEquals(TextNode.valueOf("IT07654930130"), SaxToJsonValueConverter.convert("IT07654930130", true));
+        assertEquals(TextNode.valueOf(""), SaxToJsonValueConverter.convert("", true));
+    }
+
+    @Test
+    public void whenSliceThenConvertOnlyItsChars() throws Exception {
+        char[] chars = "x12345678901234567890 -1.5 TRUE text".toCharArray();
+
+        assertEquals(
+                BigIntegerNode.valueOf(new BigInteger("12345678901234567890")),
+                SaxToJsonValueConverter.convert(chars, 1, 20, true, false)
+        );
+        assertEquals(DoubleNode.valueOf(-1.5), SaxToJsonValueConverter.convert(chars, 22, 4, true, false));
+        assertEquals(DecimalNode.valueOf(new BigDecimal("-1.5")), SaxToJsonValueConverter.convert(chars, 22, 4, true, true));
+        assertEquals(BooleanNode.TRUE, SaxToJsonValueConverter.convert(chars, 27, 4, true, false));
+        assertEquals(TextNode.valueOf("TRUE"), SaxToJsonValueConverter.convert(chars, 27, 4, false, false));
+        assertEquals(IntNode.valueOf(1), SaxToJsonValueConverter.convert(chars, 1, 1, true, false));
+        assertNull(SaxToJsonValueConverter.toPrimitive(chars, 32, 4, false));
+        assertNull(SaxToJsonValueConverter.toPrimitive(chars, 22, 3, false));
+    }
+}
@@ -0,0 +1,75 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+public class ShapeRegistryTest extends AbstractHolderTest {
+
+    private static final String ONE_CD = "<CATALOG><CD><TITLE>Red</TITLE></CD></CATALOG>";
+    private static final String TWO_CDS = "<CATALOG><CD><TITLE>Red</TITLE></CD><CD><TITLE>Blue</TITLE></CD></CATALOG>";
+
+    @Test
+    public void whenPathIsDeclaredThenSingleElementIsArray() throws Exception {
+        ShapeRegistry registry = new ShapeRegistry(100, false).declareArray("/CATALOG/CD");
+
+        JsonNode tree = tree(new ElementValueHolderFactory().setShapeRegistry(registry), ONE_CD);
+
+        assertTrue(tree.get("CATALOG").get("CD").isArray());
+        assertEquals("Red", tree.get("CATALOG").get("CD").get(0).get("TITLE").textValue());
+        assertTrue(registry.isArray("/CATALOG/CD"));
+        assertFalse(registry.isArray("/CATALOG/CD/TITLE"));
+    }
+
+    @Test
+    public void whenElementRepeatedBeforeThenNextDocumentKeepsArray() throws Exception {
+        ElementValueHolderFactory factory = new ElementValueHolderFactory().setShapeRegistry(new ShapeRegistry());
+
+        assertTrue(tree(factory, ONE_CD).get("CATALOG").get("CD").isObject());
+        assertTrue(tree(factory, TWO_CDS).get("CATALOG").get("CD").isArray());
+
+        JsonNode tree = tree(factory, ONE_CD);
+        assertEquals(1, tree.get("CATALOG").get("CD").size());
+        assertTrue(factory.getShapeRegistry().isArray("/CATALOG/CD"));
+    }
+
+    @Test
+    public void whenNotLearningThenOnlyDeclaredPathsAreArrays() throws Exception {
+        ElementValueHolderFactory factory = new ElementValueHolderFactory()
+                .setShapeRegistry(new ShapeRegistry(100, false));
+
+        tree(factory, TWO_CDS);
+
+        assertTrue(tree(factory, ONE_CD).get("CATALOG").get("CD").isObject());
+        assertEquals(0, factory.getShapeRegistry().size());
+    }
+
+    @Test
+    public void whenRegistryIsFullThenConvertAsUsual() throws Exception {
+        ElementValueHolderFactory factory = new ElementValueHolderFactory().setShapeRegistry(new ShapeRegistry(1, true));
+
+        JsonNode tree = tree(factory, TWO_CDS);
+
+        assertEquals(1, factory.getShapeRegistry().size());
+        assertEquals(2, tree.get("CATALOG").get("CD").size());
+        assertTrue(tree(factory, ONE_CD).get("CATALOG").get("CD").isObject());
+    }
+
+    @Test
+    public void whenStreamingThenDeclaredArrayMatchesTree() throws Exception {
+        ElementValueHolderFactory factory = new ElementValueHolderFactory()
+                .setShapeRegistry(new ShapeRegistry(100, false).declareArray("/CATALOG/CD"));
+
+        StringWriter writer = new StringWriter();
+        JsonGenerator generator = new JsonFactory().createGenerator(writer);
+        parse(new SaxJsonStreamingHandler(generator, factory), ONE_CD);
+        generator.close();
+
+        assertEquals(tree(factory, ONE_CD).toString(), writer.toString());
+    }
+}
@@ -0,0 +1,124 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StaxJsonConverterTest {
+
+    private final XMLInputFactory inputFactory = XMLInputFactory.newFactory();
+
+    @Test
+    public void checkOneNodeMatchesSax() throws Exception {
+        assertSameAsSax("src/test/resources/oneNode.xml", new ElementValueHolderFactory());
+    }
+
+    @Test
+    public void checkArrayCdMatchesSax() throws Exception {
+        assertSameAsSax(
+                "src/test/resources/arrayCd.xml",
+                new ElementValueHolderFactory().setConvertToJsonPrimitives(true)
+        );
+    }
+
+    @Test
+    public void checkArrayAnagraficaMatchesSax() throws Exception {
+        assertSameAsSax(
+                "src/test/resources/arrayAnagrafica.xml",
+                new ElementValueHolderFactory().setValuePrefix("text").setConvertToJsonPrimitives(true)
+        );
+    }
+
+    @Test
+    public void checkNestedNodesMatchesSax() throws Exception {
+        assertSameAsSax(
+                "src/test/resources/nestedNode.xml",
+                new ElementValueHolderFactory()
+                        .setAttrPrefix("@")
+                        .setUsePrefixForAttributes(true)
+                        .setValuePrefix("#text")
+        );
+    }
+
+    @Test
+    public void whenNamespacesAndCdataThenMatchSax() throws Exception {
+        String xml = "<?xml version=\"1.0\"?><!-- comment --><p:root xmlns:p=\"urn:p\" xmlns=\"urn:d\" p:id=\"1\">"
+                + "<p:item>a &amp; b</p:item><item><![CDATA[<raw>]]></item><?pi data?></p:root>";
+
+        SaxJsonContentHandler handler = new SaxJsonContentHandler();
+        XMLReader xmlReader = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
+        xmlReader.setContentHandler(handler);
+        xmlReader.parse(new InputSource(new StringReader(xml)));
+
+        JsonNode result = new StaxJsonConverter().convert(inputFactory.createXMLStreamReader(new StringReader(xml)));
+
+        assertEquals(handler.getTree().toString(), result.toString());
+    }
+
+    @Test
+    public void whenConvertElementThenStopOnItsEndTag() throws Exception {
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(
+                new StringReader("<CATALOG><CD><TITLE>Red</TITLE></CD><CD><TITLE>Blue</TITLE></CD></CATALOG>")
+        );
+        StaxJsonConverter converter = new StaxJsonConverter();
+
+        List<String> titles = new ArrayList<>();
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT && "CD".equals(reader.getLocalName())) {
+                titles.add(converter.convertElement(reader).get("TITLE").textValue());
+                assertEquals(XMLStreamConstants.END_ELEMENT, reader.getEventType());
+            }
+        }
+
+        assertEquals(2, titles.size());
+        assertEquals("Red", titles.get(0));
+        assertEquals("Blue", titles.get(1));
+    }
+
+    @Test
+    public void whenRecordPathIsSetThenDeliverRecords() throws Exception {
+        final List<JsonNode> records = new ArrayList<>();
+        StaxJsonConverter converter = new StaxJsonConverter().setRecordListener("/CATALOG/CD", new RecordListener() {
+            @Override
+            public void onRecord(JsonNode record, JsonNode envelope) {
+                records.add(record);
+            }
+        });
+
+        JsonNode result;
+        try (InputStream input = new FileInputStream("src/test/resources/arrayCd.xml")) {
+            result = converter.convert(inputFactory.createXMLStreamReader(input));
+        }
+
+        assertEquals(4, records.size());
+        assertEquals("Empire Burlesque", records.get(0).get("TITLE").textValue());
+        assertFalse(result.get("CATALOG").has("CD"));
+    }
+
+    private void assertSameAsSax(String file, ElementValueHolderFactory factory) throws Exception {
+        SaxJsonContentHandler handler = new SaxJsonContentHandler(factory);
+        XMLReader xmlReader = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
+        xmlReader.setContentHandler(handler);
+        xmlReader.parse(file);
+
+        JsonNode result;
+        try (InputStream input = new FileInputStream(file)) {
+            result = new StaxJsonConverter(factory).convert(inputFactory.createXMLStreamReader(input));
+        }
+
+        assertEquals(handler.getTree().toString(), result.toString());
+    }
+}
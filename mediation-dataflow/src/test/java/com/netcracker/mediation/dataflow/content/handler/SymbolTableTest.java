@@ -0,0 +1,53 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SymbolTableTest {
+
+    private final SymbolTable symbols = new SymbolTable(4);
+
+    @Test
+    public void whenSameCharsThenSameInstance() throws Exception {
+        char[] ch = "<record>".toCharArray();
+
+        String first = symbols.lookup(ch, 1, 6);
+        String second = symbols.lookup(ch, 1, 6);
+
+        assertEquals("record", first);
+        assertSame(first, second);
+        assertSame(first, symbols.lookup(new String("record")));
+    }
+
+    @Test
+    public void whenQualifiedNameThenJoinOnce() throws Exception {
+        String name = symbols.lookup("p", "item");
+
+        assertEquals("p:item", name);
+        assertSame(name, symbols.lookup("p", "item"));
+        assertSame(name, symbols.lookup(new String("p:item")));
+        assertSame(symbols.lookup("item"), symbols.lookup("", "item"));
+    }
+
+    @Test
+    public void whenPrefixedThenCacheKeyPerPrefix() throws Exception {
+        String key = symbols.prefixed("@", "id");
+
+        assertEquals("@id", key);
+        assertSame(key, symbols.prefixed("@", "id"));
+        assertEquals("-id", symbols.prefixed("-", "id"));
+    }
+
+    @Test
+    public void whenFullThenReturnNewNamesAsTheyAre() throws Exception {
+        for (String name : new String[]{"a", "b", "c", "d"}) symbols.lookup(name);
+
+        String extra = new String("e");
+        assertSame(extra, symbols.lookup(extra));
+        assertEquals("e", symbols.lookup("e".toCharArray(), 0, 1));
+        assertEquals("@e", symbols.prefixed("@", "e"));
+        assertEquals(4, symbols.size());
+        assertSame(symbols.lookup("a"), symbols.lookup(new String("a")));
+    }
+}
@@ -0,0 +1,68 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TextArenaTest {
+
+    private final TextArena arena = new TextArena();
+
+    @Test
+    public void whenChildTextIsReleasedThenParentTextContinues() throws Exception {
+        ElementText parent = new ElementText(arena);
+        ElementText child = new ElementText(arena);
+
+        append(parent, "\n  first ");
+        append(child, "child");
+        assertEquals("child", child.getValue());
+        child.release();
+        append(parent, "second ");
+
+        assertEquals("first second", parent.getValue());
+        assertEquals("first second".length(), parent.trimmedLength());
+        assertEquals("first second ".length(), arena.top());
+    }
+
+    @Test
+    public void whenSiblingsAreReleasedThenReuseTheirChars() throws Exception {
+        ElementText child = new ElementText(arena);
+        for (int index = 0; index < 1000; index++) {
+            child.clear();
+            append(child, "sibling " + index);
+            assertEquals("sibling " + index, child.getValue());
+            child.release();
+        }
+
+        assertEquals(0, arena.top());
+        assertTrue(child.isBlank());
+    }
+
+    @Test
+    public void whenArenaGrowsThenKeepTheOpenSlices() throws Exception {
+        ElementText parent = new ElementText(arena);
+        ElementText child = new ElementText(arena);
+        append(parent, "parent");
+        StringBuilder large = new StringBuilder();
+        for (int index = 0; index < 1000; index++) large.append(index);
+        append(child, large.toString());
+
+        char[] copy = new char[child.trimmedLength()];
+        child.getChars(copy, 0);
+        assertEquals(large.toString(), new String(copy));
+        assertEquals("parent", new String(parent.getBuffer(), parent.getStart(), parent.trimmedLength()));
+    }
+
+    @Test
+    public void whenClearedThenDropLargeArray() throws Exception {
+        append(new ElementText(arena), new String(new char[2 * 1024 * 1024]).replace('\0', 'x'));
+        arena.clear();
+
+        assertEquals(0, arena.top());
+        assertTrue(arena.capacity() <= 1024 * 1024);
+    }
+
+    private static void append(ElementText text, String chunk) {
+        text.append(chunk.toCharArray(), 0, chunk.length());
+    }
+}
@@ -0,0 +1,127 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class XmlMessageReaderTest {
+
+    private final SaxJsonConverter converter = new SaxJsonConverter(
+            new ElementValueHolderFactory().setConvertToJsonPrimitives(true), 2);
+
+    @Test
+    public void whenConsecutiveRootsThenSplitAfterEach() throws Exception {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<a x=\"/>\"><a>1</a></a>\n"
+                + "<!-- <b> --><b><![CDATA[</b>]]></b>"
+                + "<?xml version=\"1.0\"?><!DOCTYPE c [<!ELEMENT c (#PCDATA)>]><c/>"
+                + "<d y='>'><?pi </d>?>2</d>\r\n\t";
+
+        assertEquals("[{\"a\":{\"a\":1,\"x\":\"/>\"}}, {\"b\":\"</b>\"}, {\"c\":null}, {\"d\":{\"value\":2,\"y\":\">\"}}]",
+                readAll(converter.readMessages(stream(xml, 1000))).toString());
+        assertEquals(1, converter.getIdleCount());
+    }
+
+    @Test
+    public void whenDelimiterThenSplitOnIt() throws Exception {
+        String xml = "<a>1</a>\r\n--\r\n<b>2</b>--\r\n--<c>3</c>\r\n--\r\n";
+
+        assertEquals("[{\"a\":1}, {\"b\":2}, {\"c\":3}]",
+                readAll(converter.readMessages(stream(xml, 1), "--".getBytes(StandardCharsets.US_ASCII))).toString());
+    }
+
+    @Test
+    public void whenStreamIsReadInPiecesThenSplitLikeWhole() throws Exception {
+        StringBuilder xml = new StringBuilder();
+        for (int index = 0; index < 50; index++) {
+            xml.append("<r i=\"").append(index).append("\">");
+            for (int item = 0; item < index * 20; item++) xml.append("<v>").append(item).append("</v>");
+            xml.append("</r>\n\0");
+        }
+
+        for (int chunk : new int[]{1, 7, 100000}) {
+            List<JsonNode> roots = readAll(converter.readMessages(stream(xml.toString().replace("\0", ""), chunk)));
+            List<JsonNode> delimited = readAll(converter.readMessages(stream(xml.toString(), chunk), new byte[]{0}));
+
+            assertEquals(50, roots.size());
+            assertEquals(roots, delimited);
+            assertEquals(49 * 20, roots.get(49).get("r").get("v").size());
+            assertEquals(49, roots.get(49).get("r").get("i").intValue());
+        }
+    }
+
+    @Test
+    public void whenMessageFailsThenSkipIt() throws Exception {
+        XmlMessageReader reader = converter.readMessages(stream("<a>1</a>\n<b><c></b>\n<d>2</d>\n", 1000),
+                "\n".getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals("{\"a\":1}", reader.next().toString());
+        try {
+            reader.next();
+            fail();
+        } catch (SAXException expected) {
+        }
+        assertEquals("{\"d\":2}", reader.next().toString());
+        assertNull(reader.next());
+        assertEquals(2, reader.getCount());
+        assertEquals(1, converter.getIdleCount());
+    }
+
+    @Test
+    public void whenClosedThenReleasePairAndStream() throws Exception {
+        boolean[] closed = new boolean[1];
+        InputStream in = new FilterInputStream(stream("<a>1</a><b>2</b>", 1000)) {
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+                super.close();
+            }
+        };
+
+        XmlMessageReader reader = converter.readMessages(in);
+        assertEquals("{\"a\":1}", reader.next().toString());
+        assertEquals(0, converter.getIdleCount());
+        assertFalse(closed[0]);
+
+        reader.close();
+        assertEquals(1, converter.getIdleCount());
+        assertTrue(closed[0]);
+    }
+
+    @Test
+    public void whenEmptyThenNoMessages() throws Exception {
+        assertNull(converter.readMessages(stream(" \n ", 1000)).next());
+        assertNull(converter.readMessages(stream("", 1000), new byte[]{'|'}).next());
+    }
+
+    private static List<JsonNode> readAll(XmlMessageReader reader) throws Exception {
+        List<JsonNode> trees = new ArrayList<>();
+        try {
+            for (JsonNode tree = reader.next(); tree != null; tree = reader.next()) trees.add(tree);
+        } finally {
+            reader.close();
+        }
+        return trees;
+    }
+
+    /**
+     * @return stream that gives at most {@code chunk} bytes per read, like a socket
+     */
+    private static InputStream stream(String xml, int chunk) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, chunk));
+            }
+        };
+    }
+}
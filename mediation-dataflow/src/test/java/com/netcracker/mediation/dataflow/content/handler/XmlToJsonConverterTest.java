@@ -0,0 +1,153 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class XmlToJsonConverterTest {
+
+    private static final String ANAGRAFICA = "src/test/resources/arrayAnagrafica.xml";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ElementValueHolderFactory factory = new ElementValueHolderFactory().setConvertToJsonPrimitives(true);
+
+    @Test
+    public void whenConvertStreamThenWriteTreeAsUtf8() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new FileInputStream(ANAGRAFICA)) {
+            new XmlToJsonConverter(factory).convert(in, out);
+        }
+
+        assertEquals(tree(ANAGRAFICA), new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void whenStreamingThenWriteSameJson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new XmlToJsonConverter(factory).setStreaming(true).convert(Paths.get(ANAGRAFICA), out);
+
+        JSONAssert.assertEquals(tree(ANAGRAFICA), new String(out.toByteArray(), StandardCharsets.UTF_8), true);
+    }
+
+    @Test
+    public void whenConvertReaderThenEncodeUtf8() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new XmlToJsonConverter(factory).convert(new StringReader("<a><b>Perché €</b><c>0.1</c><d>12345678901234567.5</d></a>"), out);
+
+        assertArrayEquals("{\"a\":{\"b\":\"Perché €\",\"c\":0.1,\"d\":12345678901234567.5}}".getBytes(StandardCharsets.UTF_8), out.toByteArray());
+    }
+
+    @Test
+    public void whenConvertToChannelThenWriteFile() throws Exception {
+        Path target = folder.newFile().toPath();
+        try (OutputStream out = Files.newOutputStream(target)) {
+            new XmlToJsonConverter(factory).convert(Paths.get(ANAGRAFICA), Channels.newChannel(out));
+        }
+
+        assertEquals(tree(ANAGRAFICA), new String(Files.readAllBytes(target), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void whenConvertToPathThenReplaceFile() throws Exception {
+        Path target = Files.write(folder.newFile().toPath(), new byte[100000]);
+        new XmlToJsonConverter(factory).setWindowSize(1024).convert(Paths.get(ANAGRAFICA), target);
+
+        assertEquals(tree(ANAGRAFICA), new String(Files.readAllBytes(target), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void whenFileIsNotUtf8ThenReadAsStream() throws Exception {
+        Path file = folder.newFile().toPath();
+        Files.write(file, "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><a><b>café</b><c>1</c></a>"
+                .getBytes(StandardCharsets.ISO_8859_1));
+
+        for (boolean streaming : new boolean[]{false, true}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new XmlToJsonConverter(factory).setStreaming(streaming).convert(file, out);
+
+            assertEquals("{\"a\":{\"b\":\"café\",\"c\":1}}", new String(out.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void whenDoctypeHasInternalSubsetThenReadAsStream() throws Exception {
+        Path file = folder.newFile().toPath();
+        Files.write(file, ("<?xml version=\"1.0\"?>\n<!-- entities -->\n<!DOCTYPE a [<!ENTITY name \"value\">]>"
+                + "<a><b>&name;</b></a>").getBytes(StandardCharsets.UTF_8));
+
+        for (boolean streaming : new boolean[]{false, true}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new XmlToJsonConverter(factory).setStreaming(streaming).convert(file, out);
+
+            assertEquals("{\"a\":{\"b\":\"value\"}}", new String(out.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void whenPrettyPrintThenIndent() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new XmlToJsonConverter().setPrettyPrint(true).convert(new StringReader("<a><b>1</b></a>"), out);
+
+        assertEquals("{\n  \"a\" : {\n    \"b\" : \"1\"\n  }\n}", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void whenBinaryFormatThenReadBackSameTree() throws Exception {
+        JsonNode tree = new ObjectMapper().readTree(tree(ANAGRAFICA));
+
+        for (OutputFormat format : new OutputFormat[]{OutputFormat.SMILE, OutputFormat.CBOR}) {
+            for (boolean streaming : new boolean[]{false, true}) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                new XmlToJsonConverter(factory)
+                        .setOutputFormat(format)
+                        .setStreaming(streaming)
+                        .setPrettyPrint(true)
+                        .convert(Paths.get(ANAGRAFICA), out);
+
+                assertEquals(format + " " + streaming, tree, new ObjectMapper(format.getFactory()).readTree(out.toByteArray()));
+                assertTrue(out.size() < tree.toString().length());
+            }
+        }
+    }
+
+    @Test
+    public void whenConvertedThenTargetIsNotClosed() throws Exception {
+        OutputStream out = spy(new ByteArrayOutputStream());
+        new XmlToJsonConverter().convert(new StringReader("<a/>"), out);
+
+        verify(out, never()).close();
+        verify(out, atLeastOnce()).flush();
+    }
+
+    private String tree(String file) throws Exception {
+        SaxJsonContentHandler handler = new SaxJsonContentHandler(factory);
+        XMLReader xmlReader = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
+        xmlReader.setContentHandler(handler);
+        try (InputStream in = new FileInputStream(file)) {
+            xmlReader.parse(new InputSource(in));
+        }
+        return handler.getTree().toString();
+    }
+}
@@ -0,0 +1,159 @@
+package com.netcracker.mediation.dataflow.content.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class XmlToJsonServiceTest {
+
+    private final ElementValueHolderFactory factory = new ElementValueHolderFactory().setConvertToJsonPrimitives(true);
+
+    @Test
+    public void whenConvertedThenCompleteWithTree() throws Exception {
+        try (XmlToJsonService service = new XmlToJsonService(factory, 4, 1024)) {
+            List<CompletableFuture<JsonNode>> trees = new ArrayList<>();
+            for (int index = 0; index < 100; index++) trees.add(service.convert(xml("<a><b>" + index + "</b></a>")));
+
+            for (int index = 0; index < 100; index++) {
+                assertEquals(index, trees.get(index).get().get("a").get("b").intValue());
+            }
+            assertEquals(0, service.getTaskCount());
+            assertEquals(0, service.getByteCount());
+        }
+    }
+
+    @Test
+    public void whenSinkThenWriteOutputFormat() throws Exception {
+        try (XmlToJsonService service = new XmlToJsonService(factory, 2, 1024).setOutputFormat(OutputFormat.SMILE)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertNull(service.convert(xml("<a><b>1</b></a>"), out).get());
+
+            assertEquals("{\"a\":{\"b\":1}}",
+                    new ObjectMapper(OutputFormat.SMILE.getFactory()).readTree(out.toByteArray()).toString());
+        }
+    }
+
+    @Test
+    public void whenDocumentFailsThenCompleteExceptionally() throws Exception {
+        try (XmlToJsonService service = new XmlToJsonService(factory, 2, 1024)) {
+            try {
+                service.convert(xml("<a><b></a>")).get();
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof SAXException);
+            }
+            assertEquals(0, service.getTaskCount());
+            assertEquals("{\"c\":2}", service.convert(xml("<c>2</c>")).get().toString());
+        }
+    }
+
+    @Test
+    public void whenTasksAreTakenThenWait() throws Exception {
+        HeldExecutor executor = new HeldExecutor();
+        XmlToJsonService service = new XmlToJsonService(factory, 2, 1024, executor);
+
+        CompletableFuture<JsonNode> first = service.convert(xml("<a>1</a>"));
+        assertNotNull(service.tryConvert(xml("<a>2</a>"), 0, TimeUnit.MILLISECONDS));
+        assertNull(service.tryConvert(xml("<a>3</a>"), 10, TimeUnit.MILLISECONDS));
+        assertEquals(2, service.getTaskCount());
+
+        executor.runNext();
+        assertEquals("{\"a\":1}", first.get().toString());
+        assertEquals(1, service.getTaskCount());
+        assertNotNull(service.tryConvert(xml("<a>3</a>"), 0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void whenBytesAreTakenThenWait() throws Exception {
+        HeldExecutor executor = new HeldExecutor();
+        XmlToJsonService service = new XmlToJsonService(factory, 10, 20, executor);
+
+        service.convert(xml("<a>123456789</a>"));
+        assertEquals(16, service.getByteCount());
+        assertNull(service.tryConvert(xml("<a>1</a>"), 10, TimeUnit.MILLISECONDS));
+        assertEquals(1, service.getTaskCount());
+
+        executor.runNext();
+        CompletableFuture<JsonNode> big = service.tryConvert(xml("<a>12345678901234567890</a>"), 0, TimeUnit.SECONDS);
+        assertNotNull(big);
+        assertEquals(20, service.getByteCount());
+
+        executor.runNext();
+        assertEquals("{\"a\":12345678901234567890}", big.get().toString());
+        assertEquals(0, service.getByteCount());
+    }
+
+    @Test
+    public void whenExecutorRejectsThenGiveRoomBack() throws Exception {
+        XmlToJsonService service = new XmlToJsonService(factory, 1, 1024, task -> {
+            throw new RejectedExecutionException();
+        });
+
+        try {
+            service.convert(xml("<a>1</a>"));
+            fail();
+        } catch (RejectedExecutionException expected) {
+        }
+        assertEquals(0, service.getTaskCount());
+        assertEquals(0, service.getByteCount());
+    }
+
+    @Test
+    public void whenNoExecutorThenUseVirtualThreadsIfAny() throws Exception {
+        boolean hasVirtualThreads = hasMethod("ofVirtual");
+        try (XmlToJsonService service = new XmlToJsonService(2, 1024)) {
+            assertEquals(hasVirtualThreads, service.isVirtualThreads());
+            assertEquals("{\"a\":\"1\"}", service.convert(xml("<a>1</a>")).get().toString());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenNoTasksThenFail() {
+        new XmlToJsonService(0, 1024);
+    }
+
+    private static boolean hasMethod(String name) {
+        try {
+            Thread.class.getMethod(name);
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static byte[] xml(String xml) {
+        return xml.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Keeps the tasks until the test runs them.
+     */
+    private static final class HeldExecutor implements Executor {
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runNext() {
+            tasks.remove().run();
+        }
+    }
+}